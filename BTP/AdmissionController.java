@@ -0,0 +1,318 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Vm;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/*
+ * Deadline and priority admission for cloudlets the broker releases.
+ *
+ * A cloudlet's priority class is its classType when the source set one (> 0),
+ * otherwise its id modulo the number of classes; class 0 is the highest. Its
+ * deadline is arrival + stretch[class] x its run time on the fastest VM. Every
+ * VM keeps a projected backlog, the time at which the work admitted to it
+ * finishes, as MinCompletionTimeBinder does, reset to now when the VM runs
+ * dry. On release, with the VM already chosen:
+ *
+ *   ADMIT   backlog + run time meets the deadline, or the class is 0, which
+ *           is never turned away (a late finish counts as a violation)
+ *   DEFER   it would miss now but could still make it once its VM is idle;
+ *           it waits in that VM's queue, ordered on deadline
+ *   REJECT  it cannot make its deadline even on its VM idle
+ *
+ * Run times are on the chosen VM. Each VM keeps its deferred cloudlets in its
+ * own queue, earliest deadline first. A VM's queue is retried when one of its
+ * cloudlets returns, and at the latest start time of its head (deadline - run
+ * time), after which the head is rejected; the heads are kept ordered on that
+ * time, so one VM's waiting head never holds up another's. Each decision is
+ * O(log n) in the deferred cloudlets. The SLA violation rate is (rejected +
+ * finished late) / arrived, per class and overall.
+ */
+public class AdmissionController {
+    public enum Decision { ADMIT, DEFER, REJECT }
+
+    private static final double TIME_EPSILON = 1e-6; // seconds
+
+    private static final class Deferred {
+        final Cloudlet cloudlet;
+        final double deadline;
+        final double runTime;
+        final double latestStart;
+
+        Deferred(Cloudlet cloudlet, double deadline, double runTime, double latestStart) {
+            this.cloudlet = cloudlet;
+            this.deadline = deadline;
+            this.runTime = runTime;
+            this.latestStart = latestStart;
+        }
+    }
+
+    private static final Comparator<Deferred> BY_DEADLINE =
+            Comparator.comparingDouble((Deferred d) -> d.deadline).thenComparingInt(d -> d.cloudlet.getCloudletId());
+    private static final Comparator<Deferred> BY_LATEST_START =
+            Comparator.comparingDouble((Deferred d) -> d.latestStart).thenComparingInt(d -> d.cloudlet.getCloudletId());
+
+    private final double[] stretch;
+    private PriorityQueue<Deferred>[] deferred = newQueues(16); // per VM, earliest deadline first
+    private final TreeSet<Deferred> heads = new TreeSet<>(BY_LATEST_START); // head of every non-empty queue
+    private int deferredCount;
+    private final Map<Integer, Double> deadlines = new HashMap<>(); // admitted and not yet returned
+    private double[] capacity = new double[16];
+    private double[] backlog = new double[16];
+    private int[] running = new int[16];
+    private double fastest;
+    private final long[] arrived;
+    private final long[] admitted;
+    private final long[] deferrals;
+    private final long[] rejected;
+    private final long[] late;
+
+    public AdmissionController(double[] stretch) {
+        if (stretch.length == 0) {
+            throw new IllegalArgumentException("at least one priority class is needed");
+        }
+        for (double s : stretch) {
+            if (!(s >= 1)) {
+                throw new IllegalArgumentException("stretch factors must be at least 1, got " + s);
+            }
+        }
+        this.stretch = stretch.clone();
+        arrived = new long[stretch.length];
+        admitted = new long[stretch.length];
+        deferrals = new long[stretch.length];
+        rejected = new long[stretch.length];
+        late = new long[stretch.length];
+    }
+
+    // -Dadmission=<stretch>,<stretch>,... one factor per priority class, highest first; null when not set
+    public static AdmissionController fromSystemProperty() {
+        String value = System.getProperty("admission");
+        if (value == null) {
+            return null;
+        }
+        String[] parts = value.split(",");
+        double[] stretch = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            stretch[i] = Double.parseDouble(parts[i].trim());
+        }
+        return new AdmissionController(stretch);
+    }
+
+    // Called once the VMs are created
+    public void setVms(List<? extends Vm> vms) {
+        for (Vm vm : vms) {
+            ensureVm(vm.getId());
+            capacity[vm.getId()] = vm.getMips() * vm.getNumberOfPes();
+            fastest = Math.max(fastest, capacity[vm.getId()]);
+        }
+    }
+
+    public int priorityOf(Cloudlet cloudlet) {
+        int classType = cloudlet.getClassType();
+        return classType > 0 ? Math.min(classType, stretch.length - 1) : cloudlet.getCloudletId() % stretch.length;
+    }
+
+    // Decides on a released cloudlet already bound to a VM; deferred cloudlets come back from retry
+    public Decision admit(Cloudlet cloudlet, double now) {
+        int priority = priorityOf(cloudlet);
+        arrived[priority]++;
+        double ideal = work(cloudlet) / fastest;
+        double deadline = StreamingDatacenterBroker.arrivalTimeOf(cloudlet) + stretch[priority] * ideal;
+        double runTime = runTime(cloudlet);
+        if (priority == 0 || Math.max(backlogOf(cloudlet.getVmId(), now), now) + runTime <= deadline) {
+            accept(cloudlet, deadline, runTime, now);
+            return Decision.ADMIT;
+        }
+        if (now + runTime > deadline) {
+            rejected[priority]++;
+            return Decision.REJECT;
+        }
+        defer(new Deferred(cloudlet, deadline, runTime, deadline - runTime));
+        deferrals[priority]++;
+        return Decision.DEFER;
+    }
+
+    /*
+     * Admits the VM's deferred cloudlets that now fit, earliest deadline first,
+     * handing them to `admit`, and rejects those that can no longer make it.
+     * Stops at the first one that must keep waiting.
+     */
+    public void retry(int vmId, double now, Consumer<Cloudlet> admit) {
+        PriorityQueue<Deferred> queue = vmId >= 0 && vmId < deferred.length ? deferred[vmId] : null;
+        if (queue == null || queue.isEmpty()) {
+            return;
+        }
+        heads.remove(queue.peek());
+        while (!queue.isEmpty()) {
+            Deferred head = queue.peek();
+            if (Math.max(backlogOf(vmId, now), now) + head.runTime <= head.deadline) {
+                queue.poll();
+                deferredCount--;
+                accept(head.cloudlet, head.deadline, head.runTime, now);
+                admit.accept(head.cloudlet);
+            } else if (now >= head.latestStart - TIME_EPSILON) {
+                // At or past its latest start time: waiting any longer cannot help
+                queue.poll();
+                deferredCount--;
+                rejected[priorityOf(head.cloudlet)]++;
+            } else {
+                break;
+            }
+        }
+        if (!queue.isEmpty()) {
+            heads.add(queue.peek());
+        }
+    }
+
+    // Retries every VM whose head has reached its latest start time
+    public void retryDue(double now, Consumer<Cloudlet> admit) {
+        while (!heads.isEmpty() && heads.first().latestStart <= now + TIME_EPSILON) {
+            retry(heads.first().cloudlet.getVmId(), now, admit);
+        }
+    }
+
+    // Earliest latest start time among the VMs' heads; -1 if nothing is deferred
+    public double nextRetryTime() {
+        return heads.isEmpty() ? -1 : heads.first().latestStart;
+    }
+
+    // Called for every cloudlet that returns from its datacenter
+    public void completed(Cloudlet cloudlet, double now) {
+        Double deadline = deadlines.remove(cloudlet.getCloudletId());
+        if (deadline == null) {
+            return;
+        }
+        if (cloudlet.getFinishTime() > deadline) {
+            late[priorityOf(cloudlet)]++;
+        }
+        int vmId = cloudlet.getVmId();
+        if (vmId >= 0 && vmId < running.length && --running[vmId] <= 0) {
+            running[vmId] = 0;
+            backlog[vmId] = now;
+        }
+    }
+
+    // Called when an admitted cloudlet is moved to another VM; its remaining work and slot follow it
+    public void moved(int cloudletId, long remainingLength, int fromVmId, int toVmId, double now) {
+        if (!deadlines.containsKey(cloudletId)) {
+            return;
+        }
+        ensureVm(Math.max(fromVmId, toVmId));
+        if (--running[fromVmId] <= 0) {
+            running[fromVmId] = 0;
+            backlog[fromVmId] = now;
+        } else {
+            backlog[fromVmId] = Math.max(now, backlog[fromVmId] - remainingLength / capacityOf(fromVmId));
+        }
+        backlog[toVmId] = Math.max(backlog[toVmId], now) + remainingLength / capacityOf(toVmId);
+        running[toVmId]++;
+    }
+
+    public int getDeferredCount() {
+        return deferredCount;
+    }
+
+    public void forEachDeferred(Consumer<Cloudlet> action) {
+        for (PriorityQueue<Deferred> queue : deferred) {
+            if (queue != null) {
+                for (Deferred d : queue) {
+                    action.accept(d.cloudlet);
+                }
+            }
+        }
+    }
+
+    public long getRejectedCount() {
+        return sum(rejected);
+    }
+
+    public double getViolationRate() {
+        long total = sum(arrived);
+        return total > 0 ? (sum(rejected) + sum(late)) / (double) total : 0;
+    }
+
+    public void printReport() {
+        Log.printLine();
+        Log.printLine("========== ADMISSION ==========");
+        for (int c = 0; c < stretch.length; c++) {
+            Log.printLine(String.format("Class %d (deadline %.1fx): arrived %d, admitted %d, deferred %d, rejected %d,"
+                    + " late %d, SLA violations %.2f%%", c, stretch[c], arrived[c], admitted[c], deferrals[c],
+                    rejected[c], late[c], 100 * rate(c)));
+        }
+        Log.printLine(String.format("SLA violation rate: %.2f%% (%d rejected, %d late, %d still deferred)",
+                100 * getViolationRate(), sum(rejected), sum(late), deferredCount));
+    }
+
+    private void defer(Deferred d) {
+        int vmId = d.cloudlet.getVmId();
+        ensureVm(vmId);
+        if (deferred[vmId] == null) {
+            deferred[vmId] = new PriorityQueue<>(BY_DEADLINE);
+        }
+        PriorityQueue<Deferred> queue = deferred[vmId];
+        Deferred head = queue.peek();
+        queue.add(d);
+        if (queue.peek() != head) {
+            if (head != null) {
+                heads.remove(head);
+            }
+            heads.add(d);
+        }
+        deferredCount++;
+    }
+
+    private void accept(Cloudlet cloudlet, double deadline, double runTime, double now) {
+        int vmId = cloudlet.getVmId();
+        ensureVm(vmId);
+        backlog[vmId] = Math.max(backlog[vmId], now) + runTime;
+        running[vmId]++;
+        deadlines.put(cloudlet.getCloudletId(), deadline);
+        admitted[priorityOf(cloudlet)]++;
+    }
+
+    private double rate(int c) {
+        return arrived[c] > 0 ? (rejected[c] + late[c]) / (double) arrived[c] : 0;
+    }
+
+    private double backlogOf(int vmId, double now) {
+        return vmId >= 0 && vmId < backlog.length ? backlog[vmId] : now;
+    }
+
+    private double runTime(Cloudlet cloudlet) {
+        return work(cloudlet) / capacityOf(cloudlet.getVmId());
+    }
+
+    private double capacityOf(int vmId) {
+        return vmId >= 0 && vmId < capacity.length && capacity[vmId] > 0 ? capacity[vmId] : fastest;
+    }
+
+    private static double work(Cloudlet cloudlet) {
+        return cloudlet.getCloudletLength() * (double) cloudlet.getNumberOfPes();
+    }
+
+    private static long sum(long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    private void ensureVm(int vmId) {
+        if (vmId >= capacity.length) {
+            int size = Math.max(vmId + 1, capacity.length * 2);
+            capacity = Arrays.copyOf(capacity, size);
+            backlog = Arrays.copyOf(backlog, size);
+            running = Arrays.copyOf(running, size);
+            deferred = Arrays.copyOf(deferred, size);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static PriorityQueue<Deferred>[] newQueues(int size) {
+        return (PriorityQueue<Deferred>[]) new PriorityQueue[size];
+    }
+}
@@ -0,0 +1,227 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+import java.util.*;
+
+/*
+ * Round robin that accounts the data each VM moves (cloudlet input plus output,
+ * in MB) over a sliding time window and skips VMs whose window budget, the
+ * VM bandwidth (Mbit/s) times the window length, is used up. Batches are bound
+ * before the VMs are placed; the first online selection caps each budget by the
+ * bandwidth of the VM's host.
+ *
+ * Ready VMs form a circular linked list over int arrays, so the next VM is found
+ * in O(1); a saturated VM is unlinked and parked until the window slides past
+ * its traffic. The window is split into sub-buckets with a running sum per VM.
+ * If every VM is saturated, plain round robin over all of them is used.
+ *
+ * Batch binding walks the cloudlets in arrival order and uses their arrival
+ * times as the clock, online selection the simulation clock, so the window
+ * only moves forward.
+ */
+public class BandwidthAwareRoundRobinBindingPolicy implements CloudletBindingPolicy {
+    public static final String NAME = "bwrr";
+
+    private static final int SUB_BUCKETS = 10;
+
+    private final double window;
+    private final double bucketWidth;
+    private final Map<List<? extends Vm>, State> states = new IdentityHashMap<>();
+
+    public BandwidthAwareRoundRobinBindingPolicy(double window) {
+        this.window = window;
+        this.bucketWidth = window / SUB_BUCKETS;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void bind(List<? extends Vm> vmList, List<? extends Cloudlet> cloudletList, UtilizationHistory history) {
+        if (vmList.isEmpty()) {
+            return;
+        }
+        State state = state(vmList);
+        // A stable sort of a copy, so the caller's order is kept and equal arrivals keep theirs
+        List<Cloudlet> byArrival = new ArrayList<>(cloudletList);
+        byArrival.sort(Comparator.comparingDouble(StreamingDatacenterBroker::arrivalTimeOf));
+        for (Cloudlet cloudlet : byArrival) {
+            cloudlet.setVmId(state.select(cloudlet, StreamingDatacenterBroker.arrivalTimeOf(cloudlet)));
+        }
+    }
+
+    @Override
+    public int selectVm(Cloudlet cloudlet, List<? extends Vm> vmList, UtilizationHistory history) {
+        if (vmList.isEmpty()) {
+            return -1;
+        }
+        State state = state(vmList);
+        if (!state.hostCapped) {
+            state.capToHosts(vmList);
+        }
+        return state.select(cloudlet, CloudSim.clock());
+    }
+
+    private State state(List<? extends Vm> vmList) {
+        State state = states.get(vmList);
+        if (state == null || state.ids.length != vmList.size()) {
+            state = new State(vmList);
+            states.put(vmList, state);
+        }
+        return state;
+    }
+
+    private double budget(long bw) {
+        return bw / 8.0 * window; // Mbit/s to MB over the window
+    }
+
+    private class State {
+        final int[] ids;
+        final double[] budget;
+        final double[] buckets;
+        final double[] sum;
+        final long[] epoch;
+        // Circular doubly linked list of ready VMs
+        final int[] next;
+        final int[] prev;
+        final boolean[] ready;
+        final ArrayDeque<Integer> saturated = new ArrayDeque<>();
+        int cursor;
+        int readyCount;
+        int fallback;
+        long lastRecheck = Long.MIN_VALUE;
+        boolean hostCapped;
+
+        State(List<? extends Vm> vmList) {
+            int size = vmList.size();
+            ids = new int[size];
+            budget = new double[size];
+            buckets = new double[size * SUB_BUCKETS];
+            sum = new double[size];
+            epoch = new long[size];
+            next = new int[size];
+            prev = new int[size];
+            ready = new boolean[size];
+            for (int i = 0; i < size; i++) {
+                Vm vm = vmList.get(i);
+                ids[i] = vm.getId();
+                budget[i] = budget(vm.getBw());
+                next[i] = (i + 1) % size;
+                prev[i] = (i + size - 1) % size;
+                ready[i] = true;
+            }
+            readyCount = size;
+        }
+
+        // Once, after the VMs are placed; a VM that was never created keeps its own bandwidth
+        void capToHosts(List<? extends Vm> vmList) {
+            hostCapped = true;
+            for (int i = 0; i < ids.length; i++) {
+                Vm vm = vmList.get(i);
+                if (vm.getHost() != null) {
+                    budget[i] = budget(Math.min(vm.getBw(), vm.getHost().getBw()));
+                }
+                // The batch may already have used up a smaller budget
+                if (ready[i] && sum[i] >= budget[i]) {
+                    unlink(i);
+                    saturated.add(i);
+                }
+            }
+        }
+
+        int select(Cloudlet cloudlet, double time) {
+            long now = (long) Math.floor(time / bucketWidth);
+            if (now > lastRecheck) {
+                lastRecheck = now;
+                recheckSaturated(now);
+            }
+            double data = (cloudlet.getCloudletFileSize() + cloudlet.getCloudletOutputSize()) / 1024.0; // Convert to MB
+            int index;
+            if (readyCount > 0) {
+                index = cursor;
+                cursor = next[index];
+            } else {
+                index = fallback;
+                fallback = (fallback + 1) % ids.length;
+            }
+            record(index, now, data);
+            if (ready[index] && sum[index] >= budget[index]) {
+                unlink(index);
+                saturated.add(index);
+            }
+            return ids[index];
+        }
+
+        // Drops buckets that slid out of the window and adds the data to the current one
+        private void record(int index, long now, double data) {
+            advance(index, now);
+            buckets[index * SUB_BUCKETS + (int) (Math.max(now, epoch[index]) % SUB_BUCKETS)] += data;
+            sum[index] += data;
+        }
+
+        private void advance(int index, long now) {
+            long last = epoch[index];
+            if (now <= last) {
+                return;
+            }
+            int base = index * SUB_BUCKETS;
+            long steps = Math.min(now - last, SUB_BUCKETS);
+            for (long e = last + 1; e <= last + steps; e++) {
+                int slot = base + (int) ((e + (now - last - steps)) % SUB_BUCKETS);
+                sum[index] -= buckets[slot];
+                buckets[slot] = 0;
+            }
+            if (steps == SUB_BUCKETS) {
+                sum[index] = 0; // the whole window has expired, drop rounding leftovers too
+            }
+            epoch[index] = now;
+        }
+
+        private void recheckSaturated(long now) {
+            for (int n = saturated.size(); n > 0; n--) {
+                int index = saturated.poll();
+                advance(index, now);
+                if (sum[index] < budget[index]) {
+                    link(index);
+                } else {
+                    saturated.add(index);
+                }
+            }
+        }
+
+        private void unlink(int index) {
+            ready[index] = false;
+            readyCount--;
+            if (readyCount == 0) {
+                return;
+            }
+            next[prev[index]] = next[index];
+            prev[next[index]] = prev[index];
+            if (cursor == index) {
+                cursor = next[index];
+            }
+        }
+
+        // Re-inserts just before the cursor, so it is picked after the VMs already waiting in this round
+        private void link(int index) {
+            ready[index] = true;
+            if (readyCount == 0) {
+                next[index] = index;
+                prev[index] = index;
+                cursor = index;
+            } else {
+                int before = prev[cursor];
+                next[before] = index;
+                prev[index] = before;
+                next[index] = cursor;
+                prev[cursor] = index;
+            }
+            readyCount++;
+        }
+    }
+}
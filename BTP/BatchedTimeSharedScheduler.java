@@ -0,0 +1,281 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.*;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+import java.util.*;
+
+/*
+ * Time-shared cloudlet scheduler with the same sharing rule as
+ * CloudletSchedulerTimeShared (every running PE gets total MIPS / max(PEs in
+ * use, VM PEs)), without touching every resident cloudlet on every event.
+ *
+ * Under that rule all running cloudlets advance by the same amount per PE, so
+ * the scheduler keeps one running total, virtualWork, of the MI each PE has
+ * executed, and files a cloudlet under the point on that axis where it
+ * finishes: virtualWork at admission plus its remaining MI per PE. Cloudlets
+ * with the same finish point (identical lengths admitted together, such as the
+ * drivers' fixed CLOUDLET_LENGTH) share one WorkUnit. An event advances
+ * virtualWork, completes the units it has passed and schedules the next one,
+ * so its cost depends on the number of distinct units, not on the cloudlets.
+ *
+ * The ResCloudlets' own progress is only brought up to date when someone reads
+ * the exec list (UtilizationMonitor, CheckpointWriter) or a cloudlet leaves,
+ * a unit at a time.
+ */
+public class BatchedTimeSharedScheduler extends CloudletSchedulerTimeShared {
+    public static final String NAME = "batched";
+
+    // CloudSim finishes a cloudlet once less than one whole MI is left
+    private static final double FINISH_TOLERANCE = 1.0;
+
+    private final TreeMap<Double, WorkUnit> units = new TreeMap<>();
+    private final Map<Integer, WorkUnit> unitOf = new HashMap<>();
+    private double virtualWork;
+    private int pesInUse;
+    private List<ResCloudlet> execView;
+
+    private static final class WorkUnit {
+        final double finishPoint;
+        final List<ResCloudlet> cloudlets = new ArrayList<>();
+        double synced; // virtualWork the members' finishedSoFar reflects
+
+        WorkUnit(double finishPoint, double synced) {
+            this.finishPoint = finishPoint;
+            this.synced = synced;
+        }
+    }
+
+    @Override
+    public double updateVmProcessing(double currentTime, List<Double> mipsShare) {
+        setCurrentMipsShare(mipsShare);
+        double timeSpan = currentTime - getPreviousTime();
+        setPreviousTime(currentTime);
+        if (units.isEmpty()) {
+            return 0.0;
+        }
+        double capacity = capacity(mipsShare);
+        virtualWork += capacity * timeSpan;
+
+        while (!units.isEmpty() && units.firstKey() - virtualWork < FINISH_TOLERANCE) {
+            WorkUnit unit = units.pollFirstEntry().getValue();
+            // finalizeCloudlet copies finishedSoFar to the cloudlet, so it must include this event
+            sync(unit);
+            for (ResCloudlet rcl : unit.cloudlets) {
+                unitOf.remove(rcl.getCloudletId());
+                pesInUse -= rcl.getNumberOfPes();
+                cloudletFinish(rcl);
+            }
+            execView = null;
+        }
+        if (units.isEmpty()) {
+            return 0.0;
+        }
+
+        // Fewer PEs share the VM now, so the rest speed up
+        capacity = capacity(mipsShare);
+        double nextEvent = currentTime + (units.firstKey() - virtualWork) / capacity;
+        if (nextEvent - currentTime < CloudSim.getMinTimeBetweenEvents()) {
+            nextEvent = currentTime + CloudSim.getMinTimeBetweenEvents();
+        }
+        return nextEvent;
+    }
+
+    @Override
+    public double cloudletSubmit(Cloudlet cloudlet, double fileTransferTime) {
+        // The transfer time is charged as extra length, as CloudletSchedulerTimeShared does
+        long extraSize = (long) (capacity(getCurrentMipsShare()) * fileTransferTime);
+        cloudlet.setCloudletLength(cloudlet.getCloudletLength() + extraSize);
+        ResCloudlet rcl = new ResCloudlet(cloudlet);
+        rcl.setCloudletStatus(Cloudlet.INEXEC);
+        for (int i = 0; i < cloudlet.getNumberOfPes(); i++) {
+            rcl.setMachineAndPeId(0, i);
+        }
+        return admit(rcl);
+    }
+
+    @Override
+    public double cloudletSubmit(Cloudlet cloudlet) {
+        return cloudletSubmit(cloudlet, 0.0);
+    }
+
+    @Override
+    public Cloudlet cloudletCancel(int cloudletId) {
+        List<ResCloudlet> finished = getCloudletFinishedList();
+        for (int i = 0; i < finished.size(); i++) {
+            if (finished.get(i).getCloudletId() == cloudletId) {
+                return finished.remove(i).getCloudlet();
+            }
+        }
+        ResCloudlet rcl = remove(cloudletId);
+        if (rcl != null) {
+            if (rcl.getRemainingCloudletLength() == 0) {
+                cloudletFinish(rcl);
+            } else {
+                rcl.setCloudletStatus(Cloudlet.CANCELED);
+            }
+            return rcl.getCloudlet();
+        }
+        List<ResCloudlet> paused = getCloudletPausedList();
+        for (int i = 0; i < paused.size(); i++) {
+            if (paused.get(i).getCloudletId() == cloudletId) {
+                ResCloudlet pausedRcl = paused.remove(i);
+                pausedRcl.setCloudletStatus(Cloudlet.CANCELED);
+                return pausedRcl.getCloudlet();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean cloudletPause(int cloudletId) {
+        ResCloudlet rcl = remove(cloudletId);
+        if (rcl == null) {
+            return false;
+        }
+        if (rcl.getRemainingCloudletLength() == 0) {
+            cloudletFinish(rcl);
+        } else {
+            rcl.setCloudletStatus(Cloudlet.PAUSED);
+            getCloudletPausedList().add(rcl);
+        }
+        return true;
+    }
+
+    @Override
+    public double cloudletResume(int cloudletId) {
+        List<ResCloudlet> paused = getCloudletPausedList();
+        for (int i = 0; i < paused.size(); i++) {
+            if (paused.get(i).getCloudletId() == cloudletId) {
+                ResCloudlet rcl = paused.remove(i);
+                rcl.setCloudletStatus(Cloudlet.INEXEC);
+                return CloudSim.clock() + admit(rcl);
+            }
+        }
+        return 0.0;
+    }
+
+    @Override
+    public int getCloudletStatus(int cloudletId) {
+        if (unitOf.containsKey(cloudletId)) {
+            return Cloudlet.INEXEC;
+        }
+        for (ResCloudlet rcl : getCloudletPausedList()) {
+            if (rcl.getCloudletId() == cloudletId) {
+                return rcl.getCloudletStatus();
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int runningCloudlets() {
+        return unitOf.size();
+    }
+
+    @Override
+    public Cloudlet migrateCloudlet() {
+        if (units.isEmpty()) {
+            return null;
+        }
+        ResCloudlet rcl = remove(units.firstEntry().getValue().cloudlets.get(0).getCloudletId());
+        rcl.finalizeCloudlet();
+        return rcl.getCloudlet();
+    }
+
+    @Override
+    public double getTotalCurrentAvailableMipsForCloudlet(ResCloudlet rcl, List<Double> mipsShare) {
+        return capacity(mipsShare);
+    }
+
+    // Every running cloudlet, with its progress brought up to date
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends ResCloudlet> List<T> getCloudletExecList() {
+        if (execView == null) {
+            execView = new ArrayList<>(unitOf.size());
+            for (WorkUnit unit : units.values()) {
+                execView.addAll(unit.cloudlets);
+            }
+        }
+        for (WorkUnit unit : units.values()) {
+            sync(unit);
+        }
+        return (List<T>) execView;
+    }
+
+    public int getUnitCount() {
+        return units.size();
+    }
+
+    // Files a running cloudlet under its finish point and returns the time until that point
+    private double admit(ResCloudlet rcl) {
+        int pes = Math.max(1, rcl.getNumberOfPes());
+        double finishPoint = virtualWork + rcl.getRemainingCloudletLength() / (double) pes;
+        WorkUnit unit = units.get(finishPoint);
+        if (unit == null) {
+            unit = new WorkUnit(finishPoint, virtualWork);
+            units.put(finishPoint, unit);
+        } else {
+            // The newcomer starts from here, so the members must not owe it any progress
+            sync(unit);
+        }
+        unit.cloudlets.add(rcl);
+        unitOf.put(rcl.getCloudletId(), unit);
+        pesInUse += rcl.getNumberOfPes();
+        execView = null;
+        double capacity = capacity(getCurrentMipsShare());
+        return capacity > 0 ? (finishPoint - virtualWork) / capacity : 0.0;
+    }
+
+    // Takes a running cloudlet out of its unit with its progress up to date; null if not running here
+    private ResCloudlet remove(int cloudletId) {
+        WorkUnit unit = unitOf.remove(cloudletId);
+        if (unit == null) {
+            return null;
+        }
+        sync(unit);
+        ResCloudlet rcl = null;
+        for (Iterator<ResCloudlet> it = unit.cloudlets.iterator(); it.hasNext(); ) {
+            ResCloudlet candidate = it.next();
+            if (candidate.getCloudletId() == cloudletId) {
+                rcl = candidate;
+                it.remove();
+                break;
+            }
+        }
+        if (unit.cloudlets.isEmpty()) {
+            units.remove(unit.finishPoint);
+        }
+        pesInUse -= rcl.getNumberOfPes();
+        execView = null;
+        return rcl;
+    }
+
+    private void sync(WorkUnit unit) {
+        double done = virtualWork - unit.synced;
+        if (done <= 0) {
+            return;
+        }
+        for (ResCloudlet rcl : unit.cloudlets) {
+            rcl.updateCloudletFinishedSoFar((long) (done * rcl.getNumberOfPes() * Consts.MILLION));
+        }
+        unit.synced = virtualWork;
+    }
+
+    // MIPS each running PE gets, from the PE count kept here rather than a pass over the exec list
+    private double capacity(List<Double> mipsShare) {
+        double total = 0;
+        int cpus = 0;
+        if (mipsShare != null) {
+            for (Double mips : mipsShare) {
+                total += mips;
+                if (mips > 0) {
+                    cpus++;
+                }
+            }
+        }
+        int sharing = Math.max(pesInUse, cpus);
+        return sharing > 0 ? total / sharing : 0;
+    }
+}
@@ -0,0 +1,62 @@
+package org.cloudbus.cloudsim.examples;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/*
+ * Looks binding policies up by name so the drivers can pick one at run time
+ * (-Dbinder=<name>). Every lookup returns a fresh instance.
+ */
+public final class BindingPolicyRegistry {
+    public static final String DEFAULT_POLICY = DynamicRoundRobinBindingPolicy.NAME;
+
+    private static final double CPU_THRESHOLD = 0.8;
+    private static final double CPU_HISTORY_WINDOW = 10;
+    private static final double MAX_DATA_TRANSFER_THRESHOLD = 1000;
+    private static final double BANDWIDTH_WINDOW = 10; // seconds
+    private static final int CHOICES = 2;
+    private static final long SEED = 1;
+    private static final double COST_SLACK = 1.5;
+    private static final int GA_POPULATION = 64;
+    private static final long GA_BUDGET_MILLIS = 2000;
+
+    private static final Map<String, Supplier<CloudletBindingPolicy>> policies = new LinkedHashMap<>();
+
+    static {
+        register(ThrottledBindingPolicy.NAME, () -> new ThrottledBindingPolicy(CPU_THRESHOLD, CPU_HISTORY_WINDOW));
+        register(SjfBindingPolicy.NAME, SjfBindingPolicy::new);
+        register(DynamicRoundRobinBindingPolicy.NAME, () -> new DynamicRoundRobinBindingPolicy(MAX_DATA_TRANSFER_THRESHOLD));
+        register(BandwidthAwareRoundRobinBindingPolicy.NAME, () -> new BandwidthAwareRoundRobinBindingPolicy(BANDWIDTH_WINDOW));
+        register(PowerOfChoicesBindingPolicy.NAME, () -> new PowerOfChoicesBindingPolicy(CHOICES, SEED));
+        // -Dcost.makespan=<seconds> fixes the makespan limit, otherwise it is derived per batch
+        register(CostAwareBindingPolicy.NAME, () -> new CostAwareBindingPolicy(COST_SLACK,
+                Double.parseDouble(System.getProperty("cost.makespan", "0"))));
+        // -Dga.budget=<milliseconds> bounds the wall time the genetic search spends per batch, 0 for none
+        register(GeneticBindingPolicy.NAME, () -> new GeneticBindingPolicy(GA_POPULATION,
+                Long.getLong("ga.budget", GA_BUDGET_MILLIS), SEED));
+    }
+
+    private BindingPolicyRegistry() {
+    }
+
+    public static synchronized void register(String name, Supplier<CloudletBindingPolicy> factory) {
+        policies.put(name.toLowerCase(), factory);
+    }
+
+    public static synchronized CloudletBindingPolicy create(String name) {
+        Supplier<CloudletBindingPolicy> factory = policies.get(name.toLowerCase());
+        if (factory == null) {
+            throw new IllegalArgumentException("Unknown binding policy '" + name + "', expected one of " + policies.keySet());
+        }
+        return factory.get();
+    }
+
+    // Policy named by the binder system property, or the default
+    public static CloudletBindingPolicy fromSystemProperty() {
+        return create(System.getProperty("binder", DEFAULT_POLICY));
+    }
+
+    public static synchronized Set<String> names() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(policies.keySet()));
+    }
+}
@@ -0,0 +1,153 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.ResCloudlet;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.CloudSimTags;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Writes a SimulationCheckpoint every `interval` simulated seconds, replacing
+ * the previous one, until the broker terminates.
+ *
+ * Each checkpoint takes three rounds of events at the same clock: the
+ * datacenters are told to bring their VM schedulers up to date, then
+ * cloudlets that finished in that update reach the broker, and only then is
+ * the state read, so remaining work is current and nothing is between places.
+ */
+public class CheckpointWriter extends SimEntity {
+    private static final int TICK = 61003;
+    private static final int SETTLE = 61004;
+    private static final int WRITE = 61005;
+
+    private final String path;
+    private final double interval;
+    private final StreamingDatacenterBroker broker;
+    private final MetricsAggregator metrics;
+    private final CostReport costs;
+    private TraceReader trace;
+    private WorkloadGenerator workload;
+    private CloudletStore store;
+    private double timeOffset;
+    private long written;
+
+    public CheckpointWriter(String name, String path, double interval, StreamingDatacenterBroker broker,
+                            MetricsAggregator metrics, CostReport costs) {
+        super(name);
+        this.path = path;
+        this.interval = interval;
+        this.broker = broker;
+        this.metrics = metrics;
+        this.costs = costs;
+        broker.setTrackInFlight(true);
+    }
+
+    /*
+     * -Dcheckpoint=<file> snapshots the run every -Dcheckpoint.interval simulated
+     * seconds (3600); null when not set. Sources may be null; a resumed run passes
+     * its checkpoint so later snapshots keep counting from its clock.
+     */
+    public static CheckpointWriter fromSystemProperty(StreamingDatacenterBroker broker, MetricsAggregator metrics,
+                                                      CostReport costs, TraceReader trace, WorkloadGenerator workload,
+                                                      CloudletStore store, SimulationCheckpoint resumedFrom) {
+        String path = System.getProperty("checkpoint");
+        if (path == null) {
+            return null;
+        }
+        double interval = Double.parseDouble(System.getProperty("checkpoint.interval", "3600"));
+        CheckpointWriter writer = new CheckpointWriter("Checkpointer", path, interval, broker, metrics, costs);
+        writer.trace = trace;
+        writer.workload = workload;
+        writer.store = store;
+        writer.timeOffset = resumedFrom != null ? resumedFrom.getClock() : 0;
+        return writer;
+    }
+
+    @Override
+    public void startEntity() {
+        schedule(getId(), interval, TICK);
+    }
+
+    @Override
+    public void processEvent(SimEvent ev) {
+        switch (ev.getTag()) {
+            case TICK:
+                for (int datacenterId : CloudSim.getCloudResourceList()) {
+                    sendNow(datacenterId, CloudSimTags.VM_DATACENTER_EVENT);
+                }
+                schedule(getId(), 0, SETTLE);
+                break;
+            case SETTLE:
+                schedule(getId(), 0, WRITE);
+                break;
+            case WRITE:
+                try {
+                    capture().write(path);
+                    written++;
+                } catch (IOException e) {
+                    Log.printLine(CloudSim.clock() + ": " + getName() + ": Failed to write checkpoint: " + e);
+                }
+                if (!broker.isTerminated()) {
+                    schedule(getId(), interval, TICK);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void shutdownEntity() {
+        Log.printLine(getName() + ": " + written + " checkpoints written to " + path);
+    }
+
+    private SimulationCheckpoint capture() throws IOException {
+        // Work left on the cloudlets the VMs are running, over all their PEs
+        Map<Integer, Long> remaining = new HashMap<>();
+        for (Vm vm : broker.getVmsCreatedList()) {
+            List<ResCloudlet> exec = vm.getCloudletScheduler().getCloudletExecList();
+            List<ResCloudlet> waiting = vm.getCloudletScheduler().getCloudletWaitingList();
+            for (ResCloudlet rcl : exec) {
+                remaining.put(rcl.getCloudletId(), rcl.getRemainingCloudletLength());
+            }
+            for (ResCloudlet rcl : waiting) {
+                remaining.put(rcl.getCloudletId(), rcl.getRemainingCloudletLength());
+            }
+        }
+
+        SimulationCheckpoint checkpoint = new SimulationCheckpoint(timeOffset + CloudSim.clock(),
+                broker.getVmList().size());
+        broker.forEachUnfinished(cloudlet -> add(checkpoint, cloudlet, remaining.get(cloudlet.getCloudletId())));
+        if (trace != null) {
+            for (Cloudlet cloudlet : trace.getBuffered()) {
+                add(checkpoint, cloudlet, null);
+            }
+            checkpoint.setSource(SimulationCheckpoint.SOURCE_TRACE, trace.getBytesConsumed(), trace.getNextId(),
+                    trace.getLinesRead());
+        } else if (workload != null) {
+            checkpoint.setSource(SimulationCheckpoint.SOURCE_WORKLOAD, workload.getProducedCount(), 0, 0);
+        } else if (store != null) {
+            store.forEachUnreleased(cloudlet -> add(checkpoint, cloudlet, null));
+        }
+        checkpoint.setMetrics(metrics, costs);
+        return checkpoint;
+    }
+
+    private void add(SimulationCheckpoint checkpoint, Cloudlet cloudlet, Long remainingTotal) {
+        int pes = cloudlet.getNumberOfPes();
+        long length = cloudlet.getCloudletLength();
+        if (remainingTotal != null) {
+            length = Math.max(1, (remainingTotal + pes - 1) / pes);
+        }
+        checkpoint.add(cloudlet.getCloudletId(), timeOffset + StreamingDatacenterBroker.arrivalTimeOf(cloudlet),
+                length, pes, cloudlet.getCloudletFileSize(), cloudlet.getCloudletOutputSize(), cloudlet.getVmId());
+    }
+}
@@ -0,0 +1,36 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Datacenter;
+import org.cloudbus.cloudsim.Vm;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Strategy for binding cloudlets to VMs. Policies bind by setting the VM id on
+ * the cloudlet, which is what DatacenterBroker.bindCloudletToVm does once it
+ * has found the cloudlet. Instances may keep state between calls, so each
+ * simulation should get its own from BindingPolicyRegistry.
+ */
+public interface CloudletBindingPolicy {
+    String getName();
+
+    // Batch binding before the simulation starts; cloudlets left at -1 are placed by the broker
+    void bind(List<? extends Vm> vmList, List<? extends Cloudlet> cloudletList, UtilizationHistory history);
+
+    // Online choice for a cloudlet arriving during the simulation, -1 to let the broker decide
+    default int selectVm(Cloudlet cloudlet, List<? extends Vm> vmList, UtilizationHistory history) {
+        return -1;
+    }
+
+    /*
+     * Called once the VMs are placed (vmPlacement maps VM id to datacenter id,
+     * null when the broker puts every VM in the first datacenter). A policy that
+     * returns true chooses among VMs of all datacenters itself, so the drivers
+     * hand it the whole pool instead of routing through DatacenterSelector first.
+     */
+    default boolean useDatacenters(List<Datacenter> datacenters, Map<Integer, Integer> vmPlacement) {
+        return false;
+    }
+}
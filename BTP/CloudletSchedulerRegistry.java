@@ -0,0 +1,55 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.CloudletScheduler;
+import org.cloudbus.cloudsim.CloudletSchedulerSpaceShared;
+import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/*
+ * Looks cloudlet schedulers up by name so the drivers can pick how VMs run
+ * their cloudlets at run time (-Dscheduler=<name>):
+ *
+ *   timeshared   CloudletSchedulerTimeShared, every resident cloudlet shares the PEs
+ *   spaceshared  CloudletSchedulerSpaceShared, one cloudlet per PE, the rest wait in order
+ *   batched      BatchedTimeSharedScheduler, time shared with cloudlets grouped by finish point
+ *
+ * Every VM needs its own scheduler, so the drivers keep the Supplier.
+ */
+public final class CloudletSchedulerRegistry {
+    public static final String DEFAULT_SCHEDULER = "timeshared";
+
+    private static final Map<String, Supplier<CloudletScheduler>> schedulers = new LinkedHashMap<>();
+
+    static {
+        register(DEFAULT_SCHEDULER, CloudletSchedulerTimeShared::new);
+        register("spaceshared", CloudletSchedulerSpaceShared::new);
+        register(BatchedTimeSharedScheduler.NAME, BatchedTimeSharedScheduler::new);
+    }
+
+    private CloudletSchedulerRegistry() {
+    }
+
+    public static synchronized void register(String name, Supplier<CloudletScheduler> factory) {
+        schedulers.put(name.toLowerCase(), factory);
+    }
+
+    public static synchronized Supplier<CloudletScheduler> get(String name) {
+        Supplier<CloudletScheduler> factory = schedulers.get(name.toLowerCase());
+        if (factory == null) {
+            throw new IllegalArgumentException("Unknown cloudlet scheduler '" + name + "', expected one of "
+                    + schedulers.keySet());
+        }
+        return factory;
+    }
+
+    // Factory named by the scheduler system property, or the default
+    public static Supplier<CloudletScheduler> fromSystemProperty() {
+        return get(System.getProperty("scheduler", DEFAULT_SCHEDULER));
+    }
+
+    public static synchronized Set<String> names() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(schedulers.keySet()));
+    }
+}
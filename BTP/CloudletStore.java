@@ -0,0 +1,232 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.UtilizationModel;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/*
+ * Cloudlets kept as parallel primitive arrays (struct of arrays) instead of
+ * Cloudlet objects; the cloudlet id is the index. About 50 bytes per job,
+ * against several hundred for a Cloudlet with its resource list and three
+ * utilization models.
+ *
+ * Cloudlet objects are only created for the jobs in flight: arrivals() hands
+ * them to the broker in arrival order as their time comes up, all sharing one
+ * utilization model, and the store records the VM, start and finish time of
+ * each one it gets back as completion listener. bind() runs a binding policy
+ * over temporary batches and keeps only the chosen VM ids.
+ */
+public class CloudletStore implements Consumer<Cloudlet> {
+    public static final int BIND_BATCH = 1 << 16;
+    // Stateless, so one instance is shared by every materialized cloudlet
+    private static final UtilizationModel UTILIZATION_MODEL = new UtilizationModelFull();
+
+    private int size;
+    private long[] length;
+    private int[] pes;
+    private int[] fileSize;
+    private int[] outputSize;
+    private double[] arrival;
+    private int[] vmId;
+    private double[] startTime;
+    private double[] finishTime;
+    private byte[] status;
+    private int[] order; // ids sorted on arrival, built on first use
+    private long finished;
+    private int released; // position of the arrivals() iterator
+
+    public CloudletStore(int capacity) {
+        allocate(Math.max(16, capacity));
+    }
+
+    // Id of the new cloudlet
+    public int add(double arrivalTime, long cloudletLength, int numberOfPes, long cloudletFileSize,
+                   long cloudletOutputSize) {
+        if (size == length.length) {
+            allocate(size * 2);
+        }
+        int id = size++;
+        length[id] = cloudletLength;
+        pes[id] = numberOfPes;
+        fileSize[id] = (int) Math.min(Integer.MAX_VALUE, cloudletFileSize);
+        outputSize[id] = (int) Math.min(Integer.MAX_VALUE, cloudletOutputSize);
+        arrival[id] = arrivalTime;
+        vmId[id] = -1;
+        startTime[id] = -1;
+        finishTime[id] = -1;
+        status[id] = Cloudlet.CREATED;
+        order = null;
+        return id;
+    }
+
+    // Copies the cloudlet's fields; the object itself is not kept
+    public int add(Cloudlet cloudlet) {
+        int id = add(StreamingDatacenterBroker.arrivalTimeOf(cloudlet), cloudlet.getCloudletLength(),
+                cloudlet.getNumberOfPes(), cloudlet.getCloudletFileSize(), cloudlet.getCloudletOutputSize());
+        vmId[id] = cloudlet.getVmId();
+        return id;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getFinishedCount() {
+        return finished;
+    }
+
+    public long getLength(int id) {
+        return length[id];
+    }
+
+    public double getArrivalTime(int id) {
+        return arrival[id];
+    }
+
+    public int getVmId(int id) {
+        return vmId[id];
+    }
+
+    public void setVmId(int id, int vm) {
+        vmId[id] = vm;
+    }
+
+    public double getStartTime(int id) {
+        return startTime[id];
+    }
+
+    public double getFinishTime(int id) {
+        return finishTime[id];
+    }
+
+    public int getStatus(int id) {
+        return status[id];
+    }
+
+    public TraceCloudlet materialize(int id) {
+        TraceCloudlet cloudlet = new TraceCloudlet(id, arrival[id], length[id], pes[id], fileSize[id],
+                outputSize[id], UTILIZATION_MODEL);
+        cloudlet.setVmId(vmId[id]);
+        return cloudlet;
+    }
+
+    // Hands the cloudlets to `binder` in arrival-ordered batches and keeps the VM ids it sets
+    public void bind(Consumer<List<Cloudlet>> binder) {
+        int[] sorted = order();
+        List<Cloudlet> batch = new ArrayList<>(Math.min(BIND_BATCH, size));
+        for (int from = 0; from < size; from += BIND_BATCH) {
+            int to = Math.min(size, from + BIND_BATCH);
+            batch.clear();
+            for (int i = from; i < to; i++) {
+                batch.add(materialize(sorted[i]));
+            }
+            binder.accept(batch);
+            for (Cloudlet cloudlet : batch) {
+                vmId[cloudlet.getCloudletId()] = cloudlet.getVmId();
+            }
+        }
+    }
+
+    // Materializes cloudlets one at a time in arrival order, for StreamingDatacenterBroker.submitArrivals
+    public Iterator<TraceCloudlet> arrivals() {
+        int[] sorted = order();
+        released = 0;
+        return new Iterator<TraceCloudlet>() {
+            @Override
+            public boolean hasNext() {
+                return released < sorted.length;
+            }
+
+            @Override
+            public TraceCloudlet next() {
+                if (released >= sorted.length) {
+                    throw new NoSuchElementException();
+                }
+                return materialize(sorted[released++]);
+            }
+        };
+    }
+
+    // Cloudlets arrivals() has not handed out yet
+    public void forEachUnreleased(Consumer<Cloudlet> action) {
+        int[] sorted = order();
+        for (int i = released; i < sorted.length; i++) {
+            action.accept(materialize(sorted[i]));
+        }
+    }
+
+    // Records a returned cloudlet; the broker can then drop it
+    @Override
+    public void accept(Cloudlet cloudlet) {
+        int id = cloudlet.getCloudletId();
+        if (id < 0 || id >= size) {
+            return;
+        }
+        vmId[id] = cloudlet.getVmId();
+        startTime[id] = cloudlet.getExecStartTime();
+        finishTime[id] = cloudlet.getFinishTime();
+        status[id] = (byte) cloudlet.getCloudletStatus();
+        finished++;
+    }
+
+    private int[] order() {
+        if (order == null) {
+            int[] ids = new int[size];
+            for (int i = 0; i < size; i++) {
+                ids[i] = i;
+            }
+            // Stable merge sort on arrival, so ties keep id order
+            int[] scratch = new int[size];
+            for (int width = 1; width < size; width *= 2) {
+                for (int lo = 0; lo < size - width; lo += 2 * width) {
+                    merge(ids, scratch, lo, lo + width, Math.min(lo + 2 * width, size));
+                }
+            }
+            order = ids;
+        }
+        return order;
+    }
+
+    private void merge(int[] ids, int[] scratch, int lo, int mid, int hi) {
+        if (arrival[ids[mid - 1]] <= arrival[ids[mid]]) {
+            return; // already in order, common for traces
+        }
+        System.arraycopy(ids, lo, scratch, lo, hi - lo);
+        int left = lo;
+        int right = mid;
+        for (int k = lo; k < hi; k++) {
+            if (left < mid && (right >= hi || arrival[scratch[left]] <= arrival[scratch[right]])) {
+                ids[k] = scratch[left++];
+            } else {
+                ids[k] = scratch[right++];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        if (length == null) {
+            length = new long[capacity];
+            pes = new int[capacity];
+            fileSize = new int[capacity];
+            outputSize = new int[capacity];
+            arrival = new double[capacity];
+            vmId = new int[capacity];
+            startTime = new double[capacity];
+            finishTime = new double[capacity];
+            status = new byte[capacity];
+            return;
+        }
+        length = Arrays.copyOf(length, capacity);
+        pes = Arrays.copyOf(pes, capacity);
+        fileSize = Arrays.copyOf(fileSize, capacity);
+        outputSize = Arrays.copyOf(outputSize, capacity);
+        arrival = Arrays.copyOf(arrival, capacity);
+        vmId = Arrays.copyOf(vmId, capacity);
+        startTime = Arrays.copyOf(startTime, capacity);
+        finishTime = Arrays.copyOf(finishTime, capacity);
+        status = Arrays.copyOf(status, capacity);
+    }
+}
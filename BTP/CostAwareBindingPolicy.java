@@ -0,0 +1,229 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Datacenter;
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+import java.util.*;
+
+/*
+ * Binds each cloudlet to the VM where it costs least, among the VMs of every
+ * datacenter that can still finish it by the makespan limit, using the
+ * DatacenterCharacteristics prices:
+ *
+ *   cost = costPerSecond * run time + costPerBw * (file + output) + costPerStorage * file
+ *
+ * VMs are grouped into classes of equal price and speed (a datacenter and a
+ * VM size). Every class keeps a min-heap of its VMs on projected finish time,
+ * so within a class only the earliest free VM needs to be looked at, and a
+ * decision is O(classes + log V) against the work already bound. When no
+ * class can meet the limit the cloudlet goes to the VM that finishes it
+ * first. The projected finish times carry over between batches and online
+ * choices, like PowerOfChoicesBindingPolicy.
+ *
+ * The limit is `makespan` seconds when set. Otherwise each batch derives one:
+ * the time a perfectly balanced pool would finish the batch and the work
+ * already bound, stretched by `slack` from the batch's first arrival. Online
+ * choices also allow slack times the cloudlet's run time on the fastest VM.
+ */
+public class CostAwareBindingPolicy implements CloudletBindingPolicy {
+    public static final String NAME = "cost";
+
+    private final double slack;
+    private final double makespan;
+    private final Map<List<? extends Vm>, State> states = new IdentityHashMap<>();
+    private Map<Integer, DatacenterCharacteristics> prices = Collections.emptyMap();
+    private Map<Integer, Integer> vmPlacement;
+    private int defaultDatacenter = -1;
+
+    public CostAwareBindingPolicy(double slack, double makespan) {
+        this.slack = Math.max(1, slack);
+        this.makespan = makespan;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean useDatacenters(List<Datacenter> datacenters, Map<Integer, Integer> vmPlacement) {
+        prices = new HashMap<>();
+        for (Datacenter datacenter : datacenters) {
+            prices.put(datacenter.getId(), datacenter.getCharacteristics());
+        }
+        this.vmPlacement = vmPlacement;
+        defaultDatacenter = datacenters.isEmpty() ? -1 : datacenters.get(0).getId();
+        states.clear();
+        return true;
+    }
+
+    @Override
+    public void bind(List<? extends Vm> vmList, List<? extends Cloudlet> cloudletList, UtilizationHistory history) {
+        if (vmList.isEmpty() || cloudletList.isEmpty()) {
+            return;
+        }
+        State state = state(vmList);
+        double limit = makespan > 0 ? makespan : state.estimateLimit(cloudletList);
+        state.limit = Math.max(state.limit, limit);
+        for (Cloudlet cloudlet : cloudletList) {
+            cloudlet.setVmId(state.assign(cloudlet, StreamingDatacenterBroker.arrivalTimeOf(cloudlet), limit));
+        }
+    }
+
+    @Override
+    public int selectVm(Cloudlet cloudlet, List<? extends Vm> vmList, UtilizationHistory history) {
+        if (vmList.isEmpty()) {
+            return -1;
+        }
+        State state = state(vmList);
+        double now = CloudSim.clock();
+        double limit = makespan > 0 ? makespan : Math.max(state.limit, now + slack * state.fastestRunTime(cloudlet));
+        return state.assign(cloudlet, now, limit);
+    }
+
+    private State state(List<? extends Vm> vmList) {
+        State state = states.get(vmList);
+        if (state == null || state.ids.length != vmList.size()) {
+            state = new State(vmList);
+            states.put(vmList, state);
+        }
+        return state;
+    }
+
+    private class State {
+        final int[] ids;
+        final double[] finish;
+        // Per class: prices, capacity of one VM, and a heap of VM indices on finish
+        final double[] costPerSecond;
+        final double[] costPerBw;
+        final double[] costPerStorage;
+        final double[] capacity;
+        final int[][] heaps;
+        final double totalCapacity;
+        double limit;
+
+        State(List<? extends Vm> vmList) {
+            int size = vmList.size();
+            ids = new int[size];
+            finish = new double[size];
+            Map<String, List<Integer>> members = new LinkedHashMap<>();
+            Map<String, double[]> classPrices = new HashMap<>();
+            double total = 0;
+            for (int i = 0; i < size; i++) {
+                Vm vm = vmList.get(i);
+                ids[i] = vm.getId();
+                double vmCapacity = vm.getMips() * vm.getNumberOfPes();
+                total += vmCapacity;
+                Integer datacenterId = vmPlacement != null ? vmPlacement.get(vm.getId()) : null;
+                DatacenterCharacteristics characteristics = prices.get(
+                        datacenterId != null ? datacenterId : defaultDatacenter);
+                String key = (datacenterId != null ? datacenterId : defaultDatacenter) + "/" + vmCapacity;
+                members.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+                classPrices.computeIfAbsent(key, k -> characteristics == null ? new double[] {0, 0, 0, vmCapacity}
+                        : new double[] {characteristics.getCostPerSecond(), characteristics.getCostPerBw(),
+                                characteristics.getCostPerStorage(), vmCapacity});
+            }
+            totalCapacity = total;
+            int classes = members.size();
+            costPerSecond = new double[classes];
+            costPerBw = new double[classes];
+            costPerStorage = new double[classes];
+            capacity = new double[classes];
+            heaps = new int[classes][];
+            int c = 0;
+            for (Map.Entry<String, List<Integer>> entry : members.entrySet()) {
+                double[] price = classPrices.get(entry.getKey());
+                costPerSecond[c] = price[0];
+                costPerBw[c] = price[1];
+                costPerStorage[c] = price[2];
+                capacity[c] = price[3];
+                // All finish times start at zero, so any order is a valid heap
+                heaps[c] = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+                c++;
+            }
+        }
+
+        int assign(Cloudlet cloudlet, double now, double limit) {
+            double work = cloudlet.getCloudletLength() * (double) cloudlet.getNumberOfPes();
+            double data = cloudlet.getCloudletFileSize() + cloudlet.getCloudletOutputSize();
+            int best = -1;
+            double bestCost = Double.MAX_VALUE;
+            int earliest = -1;
+            double earliestFinish = Double.MAX_VALUE;
+            for (int c = 0; c < heaps.length; c++) {
+                double runTime = work / capacity[c];
+                double candidateFinish = Math.max(finish[heaps[c][0]], now) + runTime;
+                if (candidateFinish < earliestFinish) {
+                    earliest = c;
+                    earliestFinish = candidateFinish;
+                }
+                if (candidateFinish <= limit) {
+                    double cost = costPerSecond[c] * runTime + costPerBw[c] * data
+                            + costPerStorage[c] * cloudlet.getCloudletFileSize();
+                    if (cost < bestCost) {
+                        best = c;
+                        bestCost = cost;
+                    }
+                }
+            }
+            int c = best >= 0 ? best : earliest;
+            int[] heap = heaps[c];
+            int vm = heap[0];
+            finish[vm] = Math.max(finish[vm], now) + work / capacity[c];
+            siftDown(heap);
+            return ids[vm];
+        }
+
+        // Balanced finish of the bound work plus the batch, stretched by slack from the first arrival
+        double estimateLimit(List<? extends Cloudlet> cloudletList) {
+            double first = Double.MAX_VALUE;
+            double last = 0;
+            double work = 0;
+            for (Cloudlet cloudlet : cloudletList) {
+                double arrival = StreamingDatacenterBroker.arrivalTimeOf(cloudlet);
+                first = Math.min(first, arrival);
+                last = Math.max(last, arrival);
+                work += cloudlet.getCloudletLength() * (double) cloudlet.getNumberOfPes();
+            }
+            for (int c = 0; c < heaps.length; c++) {
+                for (int vm : heaps[c]) {
+                    work += Math.max(0, finish[vm] - first) * capacity[c];
+                }
+            }
+            double balanced = Math.max(first + work / totalCapacity, last);
+            return first + slack * (balanced - first);
+        }
+
+        double fastestRunTime(Cloudlet cloudlet) {
+            double fastest = 0;
+            for (double classCapacity : capacity) {
+                fastest = Math.max(fastest, classCapacity);
+            }
+            return cloudlet.getCloudletLength() * (double) cloudlet.getNumberOfPes() / fastest;
+        }
+
+        // Only the root's finish time grows, so one pass down restores the heap
+        private void siftDown(int[] heap) {
+            int pos = 0;
+            int item = heap[0];
+            while (true) {
+                int child = 2 * pos + 1;
+                if (child >= heap.length) {
+                    break;
+                }
+                if (child + 1 < heap.length && finish[heap[child + 1]] < finish[heap[child]]) {
+                    child++;
+                }
+                if (finish[heap[child]] >= finish[item]) {
+                    break;
+                }
+                heap[pos] = heap[child];
+                pos = child;
+            }
+            heap[pos] = item;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Datacenter;
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Consumer;
+
+/*
+ * What a run cost at the DatacenterCharacteristics prices of the datacenters
+ * the cloudlets ran in, accumulated as a completion listener like
+ * MetricsAggregator:
+ *
+ *   cpu       costPerSecond * actual CPU time
+ *   transfer  costPerBw * (file + output size)
+ *   storage   costPerStorage * (file size + image size of each VM used)
+ *   memory    costPerMem * RAM of each VM used
+ *
+ * VMs are charged once, in the datacenter they first ran a cloudlet in; VMs
+ * that never ran one are not charged. Cost per throughput is total cost over
+ * finished cloudlets per second of makespan.
+ */
+public class CostReport implements Consumer<Cloudlet> {
+    private static final int CLOUDLETS = 0;
+    private static final int CPU = 1;
+    private static final int TRANSFER = 2;
+    private static final int STORAGE = 3;
+    private static final int MEMORY = 4;
+
+    private final Map<Integer, DatacenterCharacteristics> prices = new HashMap<>();
+    private final Map<Integer, double[]> datacenters = new TreeMap<>();
+    private double[] vmRam = new double[16];
+    private double[] vmSize = new double[16];
+    private boolean[] vmCharged = new boolean[16];
+    private long finished;
+    private double firstArrival = Double.MAX_VALUE;
+    private double lastFinish;
+    private double timeOffset;
+
+    public CostReport(List<Datacenter> datacenterList, List<? extends Vm> vmList) {
+        for (Datacenter datacenter : datacenterList) {
+            prices.put(datacenter.getId(), datacenter.getCharacteristics());
+        }
+        for (Vm vm : vmList) {
+            ensureVm(vm.getId());
+            vmRam[vm.getId()] = vm.getRam();
+            vmSize[vm.getId()] = vm.getSize();
+        }
+    }
+
+    @Override
+    public void accept(Cloudlet cloudlet) {
+        if (cloudlet.getCloudletStatus() != Cloudlet.SUCCESS) {
+            return;
+        }
+        DatacenterCharacteristics price = prices.get(cloudlet.getResourceId());
+        if (price == null) {
+            return;
+        }
+        finished++;
+        firstArrival = Math.min(firstArrival, timeOffset + StreamingDatacenterBroker.arrivalTimeOf(cloudlet));
+        lastFinish = Math.max(lastFinish, timeOffset + cloudlet.getFinishTime());
+        double[] dc = datacenters.computeIfAbsent(cloudlet.getResourceId(), id -> new double[5]);
+        dc[CLOUDLETS]++;
+        dc[CPU] += price.getCostPerSecond() * cloudlet.getActualCPUTime();
+        dc[TRANSFER] += price.getCostPerBw() * (cloudlet.getCloudletFileSize() + cloudlet.getCloudletOutputSize());
+        dc[STORAGE] += price.getCostPerStorage() * cloudlet.getCloudletFileSize();
+        int vmId = cloudlet.getVmId();
+        if (vmId >= 0) {
+            ensureVm(vmId);
+            if (!vmCharged[vmId]) {
+                vmCharged[vmId] = true;
+                dc[STORAGE] += price.getCostPerStorage() * vmSize[vmId];
+                dc[MEMORY] += price.getCostPerMem() * vmRam[vmId];
+            }
+        }
+    }
+
+    // Simulated time already elapsed before this run started, when resuming from a checkpoint
+    public void setTimeOffset(double timeOffset) {
+        this.timeOffset = timeOffset;
+    }
+
+    // Every accumulator, so a resumed run is priced over the whole simulation
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(finished);
+        out.writeDouble(firstArrival);
+        out.writeDouble(lastFinish);
+        out.writeInt(vmCharged.length);
+        for (boolean charged : vmCharged) {
+            out.writeBoolean(charged);
+        }
+        out.writeInt(datacenters.size());
+        for (Map.Entry<Integer, double[]> entry : datacenters.entrySet()) {
+            out.writeInt(entry.getKey());
+            for (double value : entry.getValue()) {
+                out.writeDouble(value);
+            }
+        }
+    }
+
+    // Prices and VM sizes come from the constructor, so the datacenters and VMs must match the checkpointed run
+    public void readFrom(DataInput in) throws IOException {
+        finished = in.readLong();
+        firstArrival = in.readDouble();
+        lastFinish = in.readDouble();
+        int vms = in.readInt();
+        ensureVm(vms - 1);
+        for (int id = 0; id < vms; id++) {
+            vmCharged[id] = in.readBoolean();
+        }
+        datacenters.clear();
+        for (int count = in.readInt(); count > 0; count--) {
+            double[] dc = new double[5];
+            int id = in.readInt();
+            for (int i = 0; i < dc.length; i++) {
+                dc[i] = in.readDouble();
+            }
+            datacenters.put(id, dc);
+        }
+    }
+
+    public double getTotalCost() {
+        double total = 0;
+        for (double[] dc : datacenters.values()) {
+            total += dc[CPU] + dc[TRANSFER] + dc[STORAGE] + dc[MEMORY];
+        }
+        return total;
+    }
+
+    public void printReport() {
+        Log.printLine();
+        Log.printLine("========== COST ==========");
+        double[] sum = new double[5];
+        for (Map.Entry<Integer, double[]> entry : datacenters.entrySet()) {
+            double[] dc = entry.getValue();
+            for (int i = 0; i < sum.length; i++) {
+                sum[i] += dc[i];
+            }
+            Log.printLine(String.format("%s: %d cloudlets, cpu %.2f transfer %.2f storage %.2f memory %.2f total %.2f",
+                    CloudSim.getEntityName(entry.getKey()), (long) dc[CLOUDLETS], dc[CPU], dc[TRANSFER], dc[STORAGE],
+                    dc[MEMORY], dc[CPU] + dc[TRANSFER] + dc[STORAGE] + dc[MEMORY]));
+        }
+        double total = sum[CPU] + sum[TRANSFER] + sum[STORAGE] + sum[MEMORY];
+        Log.printLine(String.format("Total cost: %.2f (cpu %.2f transfer %.2f storage %.2f memory %.2f)",
+                total, sum[CPU], sum[TRANSFER], sum[STORAGE], sum[MEMORY]));
+        if (finished > 0) {
+            double span = lastFinish - Math.min(firstArrival, lastFinish);
+            double throughput = span > 0 ? finished / span : 0;
+            Log.printLine(String.format("Cost per cloudlet: %.4f", total / finished));
+            Log.printLine(String.format("Cost per throughput: %.4f per cloudlet/second (%.4f cloudlets/second)",
+                    throughput > 0 ? total / throughput : 0, throughput));
+        }
+    }
+
+    private void ensureVm(int vmId) {
+        if (vmId >= vmRam.length) {
+            int size = Math.max(vmId + 1, vmRam.length * 2);
+            vmRam = Arrays.copyOf(vmRam, size);
+            vmSize = Arrays.copyOf(vmSize, size);
+            vmCharged = Arrays.copyOf(vmCharged, size);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Datacenter;
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+import java.util.*;
+
+/*
+ * Routes each cloudlet to a datacenter before it is bound to a VM there.
+ *
+ * Every datacenter carries a backlog, the projected time at which the work
+ * routed to it finishes on its VM capacity, as MinCompletionTimeBinder keeps
+ * per VM: max(backlog, now) + run time, so an idle datacenter starts from now.
+ * For every datacenter with VMs the selector estimates how long until the
+ * cloudlet would finish there, including moving its input and output over the
+ * VMs' bandwidth, and what it would cost from the DatacenterCharacteristics
+ * prices. Both are divided by their largest value over the datacenters, so the
+ * score is delay / max delay + costWeight * cost / max cost and neither unit
+ * dominates. The lowest score wins.
+ *
+ * Batches are routed with each cloudlet's arrival time as now, online
+ * selection with the simulation clock.
+ */
+public class DatacenterSelector {
+    private final int[] ids;
+    private final double[] mips;
+    private final double[] bw;
+    private final double[] backlog;
+    private final double[] costPerSecond;
+    private final double[] costPerBw;
+    private final double[] costPerStorage;
+    private final double costWeight;
+    private final Map<Integer, List<Vm>> vmsByDatacenter;
+    private final Map<Integer, Integer> indexById = new HashMap<>();
+
+    public DatacenterSelector(List<Datacenter> datacenters, Map<Integer, List<Vm>> vmsByDatacenter, double costWeight) {
+        int size = datacenters.size();
+        this.ids = new int[size];
+        this.mips = new double[size];
+        this.bw = new double[size];
+        this.backlog = new double[size];
+        this.costPerSecond = new double[size];
+        this.costPerBw = new double[size];
+        this.costPerStorage = new double[size];
+        this.costWeight = costWeight;
+        this.vmsByDatacenter = vmsByDatacenter;
+        for (int d = 0; d < size; d++) {
+            Datacenter datacenter = datacenters.get(d);
+            DatacenterCharacteristics characteristics = datacenter.getCharacteristics();
+            ids[d] = datacenter.getId();
+            indexById.put(ids[d], d);
+            costPerSecond[d] = characteristics.getCostPerSecond();
+            costPerBw[d] = characteristics.getCostPerBw();
+            costPerStorage[d] = characteristics.getCostPerStorage();
+            for (Vm vm : vmsByDatacenter.getOrDefault(ids[d], Collections.emptyList())) {
+                mips[d] += vm.getMips() * vm.getNumberOfPes();
+                bw[d] += vm.getBw();
+            }
+        }
+    }
+
+    // Datacenter id for a cloudlet arriving now, or -1 when no datacenter has VMs
+    public int select(Cloudlet cloudlet) {
+        return select(cloudlet, CloudSim.clock());
+    }
+
+    public int select(Cloudlet cloudlet, double now) {
+        double work = cloudlet.getCloudletLength() * (double) cloudlet.getNumberOfPes();
+        double data = cloudlet.getCloudletFileSize() + cloudlet.getCloudletOutputSize();
+        double maxDelay = 0;
+        double maxCost = 0;
+        for (int d = 0; d < ids.length; d++) {
+            if (mips[d] > 0) {
+                maxDelay = Math.max(maxDelay, delay(d, work, data, now));
+                maxCost = Math.max(maxCost, cost(d, work, data, cloudlet.getCloudletFileSize()));
+            }
+        }
+        int best = -1;
+        double bestScore = Double.MAX_VALUE;
+        for (int d = 0; d < ids.length; d++) {
+            if (mips[d] <= 0) {
+                continue;
+            }
+            double score = (maxDelay > 0 ? delay(d, work, data, now) / maxDelay : 0)
+                    + (maxCost > 0 ? costWeight * cost(d, work, data, cloudlet.getCloudletFileSize()) / maxCost : 0);
+            if (score < bestScore) {
+                bestScore = score;
+                best = d;
+            }
+        }
+        if (best < 0) {
+            return -1;
+        }
+        backlog[best] = Math.max(backlog[best], now) + work / mips[best];
+        return ids[best];
+    }
+
+    // Splits the cloudlets by selected datacenter id; every datacenter gets a list
+    public Map<Integer, List<Cloudlet>> route(List<? extends Cloudlet> cloudletList) {
+        Map<Integer, List<Cloudlet>> routed = new LinkedHashMap<>();
+        for (int id : ids) {
+            routed.put(id, new ArrayList<>());
+        }
+        for (Cloudlet cloudlet : cloudletList) {
+            int datacenterId = select(cloudlet, StreamingDatacenterBroker.arrivalTimeOf(cloudlet));
+            if (datacenterId != -1) {
+                routed.get(datacenterId).add(cloudlet);
+            }
+        }
+        return routed;
+    }
+
+    public List<Vm> getVms(int datacenterId) {
+        return vmsByDatacenter.getOrDefault(datacenterId, Collections.emptyList());
+    }
+
+    // Time until the cloudlet would have finished there and its data moved
+    private double delay(int d, double work, double data, double now) {
+        return Math.max(backlog[d], now) - now + work / mips[d] + (bw[d] > 0 ? data / bw[d] : 0);
+    }
+
+    private double cost(int d, double work, double data, long fileSize) {
+        return costPerSecond[d] * work / mips[d] + costPerBw[d] * data + costPerStorage[d] * fileSize;
+    }
+
+    // Time at which the work routed to the datacenter so far is projected to finish
+    public double getBacklog(int datacenterId) {
+        Integer index = indexById.get(datacenterId);
+        return index == null ? 0 : backlog[index];
+    }
+}
@@ -0,0 +1,248 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.*;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+
+/*
+ * Builds datacenters from a compact spec instead of one hand-written host each.
+ * A spec file has one datacenter line followed by the host classes it contains:
+ *
+ *   # comment
+ *   datacenter Edge count=4 cost=3.0 mem=0.05 storage=0.001 bw=0.0
+ *   hosts 800 pes=8 mips=2500 ram=32768 bw=10000 storage=1000000
+ *   hosts 200 pes=32 mips=3000 ram=131072 bw=40000 storage=4000000 scheduler=spaceshared
+ *
+ * count=N repeats the datacenter as <name>_0 .. <name>_N-1. Optional datacenter
+ * keys are arch, os, vmm, timezone, cost, mem, storage and bw (the last four are
+ * the DatacenterCharacteristics prices). Host keys default to the values of the
+ * drivers' original single host. Without a spec, uniform() gives that same
+ * layout, so results stay comparable.
+ *
+ * The provisioners and VM schedulers keep per-VM allocation tables, so every
+ * host and PE needs its own. What can be shared is: each host class is parsed
+ * once, and each host's PE list is shared by the host and its VM scheduler.
+ * Lists are pre-sized, which keeps building thousands of hosts a linear pass.
+ */
+public class DatacenterTopology {
+    private final List<DatacenterSpec> datacenters = new ArrayList<>();
+
+    public static DatacenterTopology load(String path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            DatacenterTopology topology = new DatacenterTopology();
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                try {
+                    topology.parseLine(line);
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException(path + ":" + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+            if (topology.datacenters.isEmpty()) {
+                throw new IllegalArgumentException(path + ": no datacenter defined");
+            }
+            return topology;
+        }
+    }
+
+    // count identical datacenters named <name>_i, each with hostsPerDatacenter identical hosts
+    public static DatacenterTopology uniform(String name, int count, int hostsPerDatacenter, int pes, double mips,
+                                             int ram, long bw, long storage) {
+        DatacenterTopology topology = new DatacenterTopology();
+        topology.parseLine("datacenter " + name + " count=" + count);
+        topology.parseLine("hosts " + hostsPerDatacenter + " pes=" + pes + " mips=" + mips + " ram=" + ram
+                + " bw=" + bw + " storage=" + storage);
+        return topology;
+    }
+
+    // Spec file named by the topology system property, or the given default
+    public static DatacenterTopology fromSystemProperty(DatacenterTopology fallback) throws IOException {
+        String path = System.getProperty("topology");
+        return path != null ? load(path) : fallback;
+    }
+
+    public List<Datacenter> build() throws Exception {
+        List<Datacenter> result = new ArrayList<>();
+        for (DatacenterSpec spec : datacenters) {
+            for (int i = 0; i < spec.count; i++) {
+                String name = spec.repeated ? spec.name + "_" + i : spec.name;
+                result.add(spec.build(name));
+            }
+        }
+        return result;
+    }
+
+    public int getDatacenterCount() {
+        int total = 0;
+        for (DatacenterSpec spec : datacenters) {
+            total += spec.count;
+        }
+        return total;
+    }
+
+    public long getHostCount() {
+        long total = 0;
+        for (DatacenterSpec spec : datacenters) {
+            total += (long) spec.count * spec.hostCount();
+        }
+        return total;
+    }
+
+    private void parseLine(String line) {
+        int comment = line.indexOf('#');
+        if (comment >= 0) {
+            line = line.substring(0, comment);
+        }
+        String[] tokens = line.trim().split("\\s+");
+        if (tokens.length == 0 || tokens[0].isEmpty()) {
+            return;
+        }
+        if (tokens[0].equals("datacenter")) {
+            if (tokens.length < 2) {
+                throw new IllegalArgumentException("datacenter needs a name");
+            }
+            datacenters.add(new DatacenterSpec(tokens[1], options(tokens, 2)));
+        } else if (tokens[0].equals("hosts")) {
+            if (datacenters.isEmpty()) {
+                throw new IllegalArgumentException("hosts before any datacenter line");
+            }
+            if (tokens.length < 2) {
+                throw new IllegalArgumentException("hosts needs a count");
+            }
+            datacenters.get(datacenters.size() - 1).hosts.add(new HostSpec(Integer.parseInt(tokens[1]), options(tokens, 2)));
+        } else {
+            throw new IllegalArgumentException("unknown entry '" + tokens[0] + "', expected datacenter or hosts");
+        }
+    }
+
+    private static Map<String, String> options(String[] tokens, int from) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = from; i < tokens.length; i++) {
+            int eq = tokens[i].indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("expected key=value, got '" + tokens[i] + "'");
+            }
+            options.put(tokens[i].substring(0, eq).toLowerCase(), tokens[i].substring(eq + 1));
+        }
+        return options;
+    }
+
+    private static double number(Map<String, String> options, String key, double fallback) {
+        String value = options.remove(key);
+        return value != null ? Double.parseDouble(value) : fallback;
+    }
+
+    private static String text(Map<String, String> options, String key, String fallback) {
+        String value = options.remove(key);
+        return value != null ? value : fallback;
+    }
+
+    private static void checkUnused(Map<String, String> options) {
+        if (!options.isEmpty()) {
+            throw new IllegalArgumentException("unknown keys " + options.keySet());
+        }
+    }
+
+    private static class DatacenterSpec {
+        final String name;
+        final int count;
+        final boolean repeated;
+        final String arch;
+        final String os;
+        final String vmm;
+        final double timeZone;
+        final double cost;
+        final double costPerMem;
+        final double costPerStorage;
+        final double costPerBw;
+        final List<HostSpec> hosts = new ArrayList<>();
+
+        DatacenterSpec(String name, Map<String, String> options) {
+            this.name = name;
+            this.repeated = options.containsKey("count");
+            this.count = (int) number(options, "count", 1);
+            this.arch = text(options, "arch", "x86");
+            this.os = text(options, "os", "Linux");
+            this.vmm = text(options, "vmm", "Xen");
+            this.timeZone = number(options, "timezone", 10.0);
+            this.cost = number(options, "cost", 3.0);
+            this.costPerMem = number(options, "mem", 0.05);
+            this.costPerStorage = number(options, "storage", 0.001);
+            this.costPerBw = number(options, "bw", 0.0);
+            checkUnused(options);
+        }
+
+        int hostCount() {
+            int total = 0;
+            for (HostSpec host : hosts) {
+                total += host.count;
+            }
+            return total;
+        }
+
+        Datacenter build(String datacenterName) throws Exception {
+            if (hosts.isEmpty()) {
+                throw new IllegalArgumentException("Datacenter " + datacenterName + " has no hosts");
+            }
+            List<Host> hostList = new ArrayList<>(hostCount());
+            for (HostSpec host : hosts) {
+                host.addTo(hostList);
+            }
+            DatacenterCharacteristics characteristics = new DatacenterCharacteristics(
+                    arch, os, vmm, hostList, timeZone, cost, costPerMem, costPerStorage, costPerBw);
+            return new Datacenter(datacenterName, characteristics, new VmAllocationPolicySimple(hostList),
+                    new LinkedList<Storage>(), 0);
+        }
+    }
+
+    private static class HostSpec {
+        final int count;
+        final int pes;
+        final double mips;
+        final int ram;
+        final long bw;
+        final long storage;
+        final boolean spaceShared;
+
+        HostSpec(int count, Map<String, String> options) {
+            this.count = count;
+            this.pes = (int) number(options, "pes", 1);
+            this.mips = number(options, "mips", 1000);
+            this.ram = (int) number(options, "ram", 2048);
+            this.bw = (long) number(options, "bw", 10000);
+            this.storage = (long) number(options, "storage", 1000000);
+            String scheduler = text(options, "scheduler", "timeshared").toLowerCase();
+            if (!scheduler.equals("timeshared") && !scheduler.equals("spaceshared")) {
+                throw new IllegalArgumentException("scheduler must be timeshared or spaceshared, got " + scheduler);
+            }
+            this.spaceShared = scheduler.equals("spaceshared");
+            checkUnused(options);
+            if (count < 0 || pes < 1 || mips <= 0 || ram <= 0) {
+                throw new IllegalArgumentException("hosts need count >= 0, pes >= 1, mips > 0 and ram > 0");
+            }
+        }
+
+        // Host ids continue from the hosts already in the list, so they are unique per datacenter
+        void addTo(List<Host> hostList) {
+            for (int i = 0; i < count; i++) {
+                List<Pe> peList = new ArrayList<>(pes);
+                for (int p = 0; p < pes; p++) {
+                    peList.add(new Pe(p, new PeProvisionerSimple(mips)));
+                }
+                VmScheduler scheduler = spaceShared ? new VmSchedulerSpaceShared(peList) : new VmSchedulerTimeShared(peList);
+                hostList.add(new Host(hostList.size(), new RamProvisionerSimple(ram), new BwProvisionerSimple(bw),
+                        storage, peList, scheduler));
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Vm;
+
+import java.util.List;
+
+/*
+ * Round robin that restarts from the first VM whenever the data forwarded
+ * since the last restart exceeds maxDataTransferThreshold (MB).
+ */
+public class DynamicRoundRobinBindingPolicy implements CloudletBindingPolicy {
+    public static final String NAME = "dynamicrr";
+
+    private final double maxDataTransferThreshold;
+    private int currentIndex; // Current index to keep track of VM selection
+    private double totalDataTransferred; // Track data transfer status
+
+    public DynamicRoundRobinBindingPolicy(double maxDataTransferThreshold) {
+        this.maxDataTransferThreshold = maxDataTransferThreshold;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void bind(List<? extends Vm> vmList, List<? extends Cloudlet> cloudletList, UtilizationHistory history) {
+        for (Cloudlet cloudlet : cloudletList) {
+            int vmId = selectVm(cloudlet, vmList, history);
+            if (vmId == -1) {
+                return;
+            }
+            cloudlet.setVmId(vmId);
+        }
+    }
+
+    @Override
+    public int selectVm(Cloudlet cloudlet, List<? extends Vm> vmList, UtilizationHistory history) {
+        if (vmList.isEmpty()) {
+            return -1;
+        }
+        // Check data transfer status before scheduling the cloudlet
+        if (totalDataTransferred < maxDataTransferThreshold) {
+            totalDataTransferred += cloudlet.getCloudletFileSize() / 1024.0; // Convert to MB
+        } else {
+            // If data transfer threshold exceeded, reset currentIndex to 0 and continue scheduling
+            currentIndex = 0;
+            totalDataTransferred = cloudlet.getCloudletFileSize() / 1024.0; // Reset totalDataTransferred
+        }
+        Vm vm = vmList.get(currentIndex % vmList.size());
+        currentIndex = (currentIndex + 1) % vmList.size(); // Move to the next VM in circular order
+        return vm.getId();
+    }
+}
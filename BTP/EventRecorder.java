@@ -0,0 +1,139 @@
+package org.cloudbus.cloudsim.examples;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Append-only log of simulation events in fixed-width binary records, written
+ * through memory-mapped regions of the file, so recording an event is a few
+ * stores into the mapping and no system call or object allocation.
+ *
+ * File layout (big endian):
+ *   int magic, int version, long record count (written on close)
+ *   records of RECORD_SIZE bytes:
+ *     double time, int type, int cloudletId, int vmId, int datacenterId, double value
+ *
+ * value is the cloudlet length for SUBMIT, the VM capacity in MIPS for
+ * VM_CREATE, the actual CPU time for FINISH, the utilization for SAMPLE and the
+ * source VM for MOVE; unused ids are -1. START records are written when the
+ * cloudlet returns, carrying its start time, so the file is in write order
+ * rather than time order. If a run dies before close the count stays 0 and
+ * readers stop at the first record of type 0 instead.
+ */
+public class EventRecorder implements Closeable {
+    public static final int SUBMIT = 1;    // cloudlet reached its arrival time at the broker
+    public static final int BIND = 2;      // cloudlet sent to its VM's datacenter
+    public static final int START = 3;
+    public static final int FINISH = 4;
+    public static final int VM_CREATE = 5;
+    public static final int SAMPLE = 6;    // utilization sample of a VM
+    public static final int MOVE = 7;      // running cloudlet moved to another VM
+    public static final String[] TYPE_NAMES = {"", "submit", "bind", "start", "finish", "vmcreate", "sample", "move"};
+
+    public static final int RECORD_SIZE = 32;
+    public static final int HEADER_SIZE = 16;
+    private static final int MAGIC = 0x43534556; // "CSEV"
+    private static final int VERSION = 1;
+    private static final long REGION_SIZE = 64L << 20;
+
+    private final FileChannel channel;
+    private MappedByteBuffer region;
+    private long regionStart;
+    private long records;
+
+    public EventRecorder(String path) throws IOException {
+        channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        region = channel.map(FileChannel.MapMode.READ_WRITE, 0, REGION_SIZE);
+        region.putInt(MAGIC).putInt(VERSION).putLong(0);
+    }
+
+    // -Drecord=<file> records the run's events to the file; null when not set
+    public static EventRecorder fromSystemProperty() throws IOException {
+        String path = System.getProperty("record");
+        return path != null ? new EventRecorder(path) : null;
+    }
+
+    public void record(int type, double time, int cloudletId, int vmId, int datacenterId, double value) {
+        if (region.remaining() < RECORD_SIZE) {
+            nextRegion();
+        }
+        region.putDouble(time).putInt(type).putInt(cloudletId).putInt(vmId).putInt(datacenterId).putDouble(value);
+        records++;
+    }
+
+    public long getRecordCount() {
+        return records;
+    }
+
+    // Cuts the file to the records written and stores their count in the header
+    @Override
+    public void close() throws IOException {
+        if (region == null) {
+            return;
+        }
+        region.force();
+        region = null;
+        channel.truncate(HEADER_SIZE + records * RECORD_SIZE);
+        ByteBuffer count = ByteBuffer.allocate(8).putLong(0, records);
+        channel.write(count, 8);
+        channel.close();
+    }
+
+    private void nextRegion() {
+        try {
+            regionStart += region.position();
+            region.force();
+            region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, REGION_SIZE);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to extend the event file", e);
+        }
+    }
+
+    public interface Visitor {
+        void visit(int type, double time, int cloudletId, int vmId, int datacenterId, double value);
+    }
+
+    // Visits every record in file order, mapping the file read-only a region at a time
+    public static long read(String path, Visitor visitor) throws IOException {
+        try (FileChannel in = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            long size = in.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException(path + " is not an event file");
+            }
+            ByteBuffer header = in.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IOException(path + " is not an event file");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException(path + " has event file version " + version + ", expected " + VERSION);
+            }
+            long count = header.getLong();
+            long available = (size - HEADER_SIZE) / RECORD_SIZE;
+            long limit = count > 0 ? Math.min(count, available) : available;
+            long perRegion = REGION_SIZE / RECORD_SIZE;
+            long read = 0;
+            while (read < limit) {
+                long batch = Math.min(perRegion, limit - read);
+                MappedByteBuffer map = in.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + read * RECORD_SIZE,
+                        batch * RECORD_SIZE);
+                for (long i = 0; i < batch; i++) {
+                    double time = map.getDouble();
+                    int type = map.getInt();
+                    if (type == 0 && count == 0) {
+                        return read; // unclosed file: the rest was never written
+                    }
+                    visitor.visit(type, time, map.getInt(), map.getInt(), map.getInt(), map.getDouble());
+                    read++;
+                }
+            }
+            return read;
+        }
+    }
+}
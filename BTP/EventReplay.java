@@ -0,0 +1,184 @@
+package org.cloudbus.cloudsim.examples;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.*;
+
+/*
+ * Reads an EventRecorder file after the fact, without running the simulation.
+ *
+ * Usage: EventReplay <file> [summary]
+ *        EventReplay <file> dump [--from t] [--to t] [--vm id] [--cloudlet id]
+ *        EventReplay <file> timeline [--bucket seconds]
+ *
+ * summary   event counts, time span, waiting and response time percentiles,
+ *           moves and mean sampled utilization
+ * dump      the records as CSV in file order, optionally filtered
+ * timeline  CSV per time bucket and VM: cloudlets started and finished, busy
+ *           seconds and mean sampled utilization (100 buckets by default)
+ */
+public class EventReplay {
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: EventReplay <file> [summary | dump [--from t] [--to t] [--vm id] [--cloudlet id]"
+                    + " | timeline [--bucket seconds]]");
+            System.exit(2);
+        }
+        String path = args[0];
+        String mode = args.length > 1 ? args[1] : "summary";
+        Map<String, String> options = new HashMap<>();
+        for (int i = 2; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --option value pairs, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        try {
+            switch (mode) {
+                case "summary":
+                    summary(path, System.out);
+                    break;
+                case "dump":
+                    dump(path, System.out, options);
+                    break;
+                case "timeline":
+                    timeline(path, System.out, options);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown mode " + mode + ", expected summary, dump or timeline");
+            }
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    public static void summary(String path, PrintStream out) throws IOException {
+        long[] counts = new long[EventRecorder.TYPE_NAMES.length];
+        double[] span = {Double.MAX_VALUE, 0};
+        double[][] submitted = {new double[1024]};
+        LatencyHistogram waiting = new LatencyHistogram();
+        LatencyHistogram response = new LatencyHistogram();
+        double[] utilization = new double[2]; // sum, samples
+        long total = EventRecorder.read(path, (type, time, cloudletId, vmId, datacenterId, value) -> {
+            if (type > 0 && type < counts.length) {
+                counts[type]++;
+            }
+            span[0] = Math.min(span[0], time);
+            span[1] = Math.max(span[1], time);
+            if (type == EventRecorder.SUBMIT && cloudletId >= 0) {
+                submitted[0] = ensure(submitted[0], cloudletId);
+                submitted[0][cloudletId] = time;
+            } else if (type == EventRecorder.START && cloudletId >= 0 && cloudletId < submitted[0].length) {
+                waiting.record(time - submitted[0][cloudletId]);
+            } else if (type == EventRecorder.FINISH && cloudletId >= 0 && cloudletId < submitted[0].length) {
+                response.record(time - submitted[0][cloudletId]);
+            } else if (type == EventRecorder.SAMPLE) {
+                utilization[0] += value;
+                utilization[1]++;
+            }
+        });
+        out.println("Records: " + total);
+        if (total == 0) {
+            return;
+        }
+        out.println(String.format("Time span: %.2f to %.2f seconds", span[0], span[1]));
+        for (int type = 1; type < counts.length; type++) {
+            out.println(String.format("  %-9s %d", EventRecorder.TYPE_NAMES[type], counts[type]));
+        }
+        out.println(String.format("Waiting time (s): mean %.2f p50 %.2f p95 %.2f p99 %.2f max %.2f",
+                waiting.getMean(), waiting.percentile(50), waiting.percentile(95), waiting.percentile(99), waiting.getMax()));
+        out.println(String.format("Response time (s): mean %.2f p50 %.2f p95 %.2f p99 %.2f max %.2f",
+                response.getMean(), response.percentile(50), response.percentile(95), response.percentile(99), response.getMax()));
+        if (utilization[1] > 0) {
+            out.println(String.format("Mean sampled utilization: %.2f%%", 100 * utilization[0] / utilization[1]));
+        }
+    }
+
+    public static void dump(String path, PrintStream out, Map<String, String> options) throws IOException {
+        double from = Double.parseDouble(options.getOrDefault("from", "0"));
+        double to = Double.parseDouble(options.getOrDefault("to", String.valueOf(Double.MAX_VALUE)));
+        int vm = Integer.parseInt(options.getOrDefault("vm", "-1"));
+        int cloudlet = Integer.parseInt(options.getOrDefault("cloudlet", "-1"));
+        StringBuilder row = new StringBuilder();
+        out.println("time,event,cloudlet,vm,datacenter,value");
+        EventRecorder.read(path, (type, time, cloudletId, vmId, datacenterId, value) -> {
+            if (time < from || time > to || (vm >= 0 && vmId != vm) || (cloudlet >= 0 && cloudletId != cloudlet)) {
+                return;
+            }
+            row.setLength(0);
+            row.append(time).append(',').append(type > 0 && type < EventRecorder.TYPE_NAMES.length
+                    ? EventRecorder.TYPE_NAMES[type] : String.valueOf(type)).append(',')
+                    .append(cloudletId).append(',').append(vmId).append(',').append(datacenterId).append(',')
+                    .append(value);
+            out.println(row);
+        });
+    }
+
+    // Two passes: the first finds the time span and VM count, the second fills the buckets
+    public static void timeline(String path, PrintStream out, Map<String, String> options) throws IOException {
+        double[] span = {Double.MAX_VALUE, 0};
+        int[] maxVm = {-1};
+        EventRecorder.read(path, (type, time, cloudletId, vmId, datacenterId, value) -> {
+            span[0] = Math.min(span[0], time);
+            span[1] = Math.max(span[1], time);
+            maxVm[0] = Math.max(maxVm[0], vmId);
+        });
+        if (maxVm[0] < 0) {
+            return;
+        }
+        double start = span[0];
+        double width = options.containsKey("bucket") ? Double.parseDouble(options.get("bucket"))
+                : Math.max((span[1] - start) / 100, 1e-9);
+        int buckets = (int) ((span[1] - start) / width) + 1;
+        int vms = maxVm[0] + 1;
+        long[] starts = new long[buckets * vms];
+        long[] finishes = new long[buckets * vms];
+        double[] busy = new double[buckets * vms];
+        double[] sampleSum = new double[buckets * vms];
+        int[] samples = new int[buckets * vms];
+        double[] lastStart = {0};
+        EventRecorder.read(path, (type, time, cloudletId, vmId, datacenterId, value) -> {
+            if (vmId < 0) {
+                return;
+            }
+            int bucket = Math.min(buckets - 1, (int) ((time - start) / width));
+            int cell = bucket * vms + vmId;
+            if (type == EventRecorder.START) {
+                starts[cell]++;
+                lastStart[0] = time;
+            } else if (type == EventRecorder.FINISH) {
+                finishes[cell]++;
+                // The START record of a cloudlet is written right before its FINISH
+                for (double t = Math.max(lastStart[0], start); t < time; ) {
+                    int b = Math.min(buckets - 1, (int) ((t - start) / width));
+                    double end = Math.min(time, start + (b + 1) * width);
+                    if (end <= t) {
+                        end = time;
+                    }
+                    busy[b * vms + vmId] += end - t;
+                    t = end;
+                }
+            } else if (type == EventRecorder.SAMPLE) {
+                sampleSum[cell] += value;
+                samples[cell]++;
+            }
+        });
+        out.println("time,vm,started,finished,busySeconds,utilization");
+        for (int b = 0; b < buckets; b++) {
+            for (int vm = 0; vm < vms; vm++) {
+                int cell = b * vms + vm;
+                if (starts[cell] == 0 && finishes[cell] == 0 && busy[cell] == 0 && samples[cell] == 0) {
+                    continue;
+                }
+                String mean = samples[cell] > 0 ? String.format("%.3f", sampleSum[cell] / samples[cell]) : "";
+                out.println(String.format("%.2f,%d,%d,%d,%.2f,%s", start + b * width, vm, starts[cell],
+                        finishes[cell], busy[cell], mean));
+            }
+        }
+    }
+
+    private static double[] ensure(double[] array, int index) {
+        return index < array.length ? array : Arrays.copyOf(array, Math.max(index + 1, array.length * 2));
+    }
+}
@@ -0,0 +1,172 @@
+package org.cloudbus.cloudsim.examples;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/*
+ * Headless entry point: runs one simulation or a queue of them without any
+ * prompts, each in its own driver JVM (CloudSim state is static).
+ *
+ * Usage: ExperimentRunner [--config base.properties] [--queue runs.txt]
+ *                         [--parallel N] [--<setting> value ...]
+ *
+ * Settings are the keys listed in SimulationConfig. --config gives the base,
+ * --<setting> flags override it, and every line of --queue is one run on top
+ * of that, e.g.
+ *
+ *   name=rr-small vms=10 cloudlets=1000 binder=dynamicrr
+ *   name=p2c-trace driver=multi vms=500 trace=jobs.swf binder=p2c results=p2c.csv jvm="-Xmx8g"
+ *
+ * Without --queue the base itself is the one run. Runs go one at a time unless
+ * --parallel says otherwise; console output of a run goes to its log file, or
+ * to stdout prefixed with its name. A summary table follows, and the exit
+ * status is 1 if any run failed.
+ */
+public class ExperimentRunner {
+    private static final Map<String, String> DRIVERS = new LinkedHashMap<>();
+
+    static {
+        DRIVERS.put("resource", ResourceAllocation.class.getName());
+        DRIVERS.put("multi", Multidatacenter.class.getName());
+        DRIVERS.put("dynamic", DynamicResourceAllocation.class.getName());
+    }
+
+    public static void main(String[] args) {
+        try {
+            SimulationConfig base = new SimulationConfig();
+            String queuePath = null;
+            int parallel = 1;
+            for (int i = 0; i < args.length; i++) {
+                if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Expected --option value pairs, got " + args[i]);
+                }
+                String option = args[i].substring(2);
+                String value = args[++i];
+                if (option.equals("config")) {
+                    base.putAll(SimulationConfig.load(value));
+                } else if (option.equals("queue")) {
+                    queuePath = value;
+                } else if (option.equals("parallel")) {
+                    parallel = Integer.parseInt(value);
+                } else {
+                    base.set(option, value);
+                }
+            }
+
+            List<SimulationConfig> queue = queuePath != null
+                    ? SimulationConfig.loadQueue(queuePath, base) : Collections.singletonList(base);
+            for (SimulationConfig config : queue) {
+                validate(config);
+            }
+            System.exit(runAll(queue, parallel) > 0 ? 1 : 0);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    // Number of failed runs
+    public static int runAll(List<SimulationConfig> queue, int parallel) {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(parallel, queue.size())));
+        List<Future<Long>> runs = new ArrayList<>();
+        for (SimulationConfig config : queue) {
+            runs.add(pool.submit(() -> run(config)));
+        }
+        pool.shutdown();
+
+        int failed = 0;
+        StringBuilder summary = new StringBuilder(String.format("%n%-24s %-8s %10s  %s%n", "run", "status",
+                "seconds", "settings"));
+        for (int i = 0; i < queue.size(); i++) {
+            SimulationConfig config = queue.get(i);
+            String status;
+            String seconds = "-";
+            try {
+                seconds = String.format("%.1f", runs.get(i).get() / 1000.0);
+                status = "ok";
+            } catch (ExecutionException e) {
+                failed++;
+                status = "failed";
+                System.err.println("Run " + name(config) + " failed: " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed++;
+                status = "stopped";
+            }
+            summary.append(String.format("%-24s %-8s %10s  %s%n", name(config), status, seconds, config));
+        }
+        System.out.print(summary);
+        System.out.println((queue.size() - failed) + " of " + queue.size() + " runs succeeded");
+        return failed;
+    }
+
+    // Forks the driver JVM for one run; wall time in milliseconds
+    private static long run(SimulationConfig config) throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        String jvm = config.get("jvm");
+        if (jvm != null) {
+            for (String arg : jvm.split("\\s+")) {
+                if (!arg.isEmpty()) {
+                    command.add(arg);
+                }
+            }
+        }
+        command.addAll(config.toJvmProperties());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(DRIVERS.get(config.get("driver", "resource")));
+
+        ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true);
+        String log = config.get("log");
+        if (log != null) {
+            builder.redirectOutput(new File(log));
+        }
+        Process process = builder.start();
+        // Nothing is typed in: a run that still wants a prompt fails instead of waiting
+        process.getOutputStream().close();
+        if (log == null) {
+            String prefix = "[" + name(config) + "] ";
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    System.out.println(prefix + line);
+                }
+            }
+        }
+        int exit = process.waitFor();
+        if (exit != 0) {
+            throw new IOException("driver exited with " + exit + (log != null ? ", see " + log : ""));
+        }
+        return (System.nanoTime() - started) / 1000000;
+    }
+
+    // Checked before anything starts, so a typo does not surface hours into a queue
+    private static void validate(SimulationConfig config) {
+        String driver = config.get("driver", "resource");
+        if (!DRIVERS.containsKey(driver)) {
+            throw new IllegalArgumentException(name(config) + ": driver must be one of " + DRIVERS.keySet()
+                    + ", got " + driver);
+        }
+        if (config.get("vms") == null) {
+            throw new IllegalArgumentException(name(config) + ": vms is not set");
+        }
+        if (config.get("cloudlets") == null && config.get("trace") == null && config.get("workload") == null
+                && config.get("resume") == null) {
+            throw new IllegalArgumentException(name(config) + ": needs cloudlets, trace, workload or resume");
+        }
+        String binder = config.get("binder");
+        if (binder != null && !BindingPolicyRegistry.names().contains(binder.toLowerCase())) {
+            throw new IllegalArgumentException(name(config) + ": unknown binder " + binder + ", expected one of "
+                    + BindingPolicyRegistry.names());
+        }
+    }
+
+    private static String name(SimulationConfig config) {
+        return config.get("name", "run");
+    }
+}
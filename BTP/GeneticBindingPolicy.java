@@ -0,0 +1,331 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * Offline batch binder that searches cloudlet -> VM assignments with a genetic
+ * algorithm for the smallest makespan, for batches where spending a few
+ * seconds of CPU before the simulation pays for itself.
+ *
+ * An assignment is an int[] of VM indexes, one per cloudlet, and its makespan
+ * is the largest VM backlog (work already bound plus length x PEs / MIPS x PEs
+ * of its cloudlets), the same projection MinCompletionTimeBinder uses. The
+ * population starts from the longest-processing-time-first greedy assignment
+ * and mutations of it. Each generation keeps the ELITE best and breeds the
+ * rest by tournament selection, two-point crossover, random reassignment and
+ * a few moves off the most loaded VM. Children are bred and scored in
+ * parallel on the common fork-join pool; each child draws from its own
+ * SplittableRandom seeded by generation and slot, so two runs with the same
+ * seed that reach the same generation produce the same assignment.
+ *
+ * The search stops after `budgetMillis` of wall time, MAX_GENERATIONS, or
+ * STALL_GENERATIONS without a better assignment, so small batches return as
+ * soon as the search has settled. Where the wall-clock budget cuts it off
+ * depends on the machine and its load, so only a budget of 0, which drops
+ * that limit, makes the result reproducible for a given seed. The best
+ * assignment is never worse than the greedy seed. Online arrivals go to the
+ * VM with the earliest projected finish, continuing from the backlog the
+ * batch left, as in SjfBindingPolicy.
+ */
+public class GeneticBindingPolicy implements CloudletBindingPolicy {
+    public static final String NAME = "ga";
+
+    private static final int ELITE = 2;
+    private static final int MAX_GENERATIONS = 100000;
+    private static final int STALL_GENERATIONS = 500;
+    private static final int REBALANCE_MOVES = 4;
+    private static final double MUTATION_RATE = 0.002; // Share of genes reassigned at random per child
+    private static final long MAX_GENES = 1L << 24;    // Per population buffer, caps the population for huge batches
+    private static final int GRAIN = 1 << 16;          // Genes per fork-join leaf
+
+    private static final Instrumentation.Counter GENERATIONS = Instrumentation.counter("policy.ga.generations");
+
+    private final int population;
+    private final long budgetMillis;
+    private final long seed;
+    private final Map<List<? extends Vm>, MinCompletionTimeBinder> binders = new IdentityHashMap<>();
+    private int generations;
+    private double seedMakespan;
+    private double bestMakespan;
+
+    public GeneticBindingPolicy(int population, long budgetMillis, long seed) {
+        if (population < ELITE + 2) {
+            throw new IllegalArgumentException("population must be at least " + (ELITE + 2) + ", got " + population);
+        }
+        this.population = population;
+        this.budgetMillis = budgetMillis;
+        this.seed = seed;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void bind(List<? extends Vm> vmList, List<? extends Cloudlet> cloudletList, UtilizationHistory history) {
+        if (vmList.isEmpty() || cloudletList.isEmpty()) {
+            return;
+        }
+        MinCompletionTimeBinder binder = binderFor(vmList);
+        int vms = vmList.size();
+        int n = cloudletList.size();
+        double[] base = new double[vms];
+        double[] capacity = new double[vms];
+        Map<Integer, Integer> indexOf = new HashMap<>();
+        for (int j = 0; j < vms; j++) {
+            Vm vm = vmList.get(j);
+            base[j] = binder.getBacklog(j);
+            capacity[j] = vm.getMips() * vm.getNumberOfPes();
+            indexOf.put(vm.getId(), j);
+        }
+        double[] work = new double[n];
+        for (int i = 0; i < n; i++) {
+            Cloudlet cloudlet = cloudletList.get(i);
+            work[i] = cloudlet.getCloudletLength() * (double) cloudlet.getNumberOfPes();
+        }
+
+        // Greedy seed: longest first onto the earliest finishing VM
+        List<Cloudlet> longestFirst = new ArrayList<>(cloudletList);
+        longestFirst.sort(Comparator.comparingLong(Cloudlet::getCloudletLength).reversed());
+        binder.bindAll(longestFirst, false);
+        int[] greedy = new int[n];
+        for (int i = 0; i < n; i++) {
+            greedy[i] = indexOf.get(cloudletList.get(i).getVmId());
+        }
+
+        Search search = new Search(work, capacity, base, (int) Math.max(ELITE + 2, Math.min(population, MAX_GENES / n)));
+        long deadline = budgetMillis > 0 ? System.nanoTime() + budgetMillis * 1000000L : Long.MAX_VALUE;
+        int[] best = search.run(greedy, deadline);
+        generations = search.generation;
+        seedMakespan = search.makespan(greedy, new double[vms]);
+
+        double[] backlog = new double[vms];
+        bestMakespan = search.makespan(best, backlog);
+        for (int i = 0; i < n; i++) {
+            cloudletList.get(i).setVmId(vmList.get(best[i]).getId());
+        }
+        binder.setBacklogs(backlog);
+        GENERATIONS.add(generations);
+    }
+
+    @Override
+    public int selectVm(Cloudlet cloudlet, List<? extends Vm> vmList, UtilizationHistory history) {
+        Vm vm = binderFor(vmList).bind(cloudlet, CloudSim.clock());
+        return vm == null ? -1 : vm.getId();
+    }
+
+    // Generations run, projected makespan of the greedy seed and of the result, for the last batch
+    public int getGenerations() {
+        return generations;
+    }
+
+    public double getSeedMakespan() {
+        return seedMakespan;
+    }
+
+    public double getBestMakespan() {
+        return bestMakespan;
+    }
+
+    private MinCompletionTimeBinder binderFor(List<? extends Vm> vmList) {
+        MinCompletionTimeBinder binder = binders.get(vmList);
+        if (binder == null || binder.getVmCount() != vmList.size()) {
+            binder = new MinCompletionTimeBinder(vmList);
+            binders.put(vmList, binder);
+        }
+        return binder;
+    }
+
+    // One batch's search state, all in primitive arrays
+    private final class Search {
+        final double[] work;
+        final double[] capacity;
+        final double[] base;
+        final int size;
+        int[][] genes;
+        int[][] next;
+        double[] fitness;
+        double[] nextFitness;
+        final int[] elite = new int[ELITE];
+        int generation;
+
+        Search(double[] work, double[] capacity, double[] base, int size) {
+            this.work = work;
+            this.capacity = capacity;
+            this.base = base;
+            this.size = size;
+            genes = new int[size][work.length];
+            next = new int[size][work.length];
+            fitness = new double[size];
+            nextFitness = new double[size];
+        }
+
+        int[] run(int[] greedy, long deadline) {
+            // Generation 0: the seed itself, the rest mutated copies of it
+            for (int k = 0; k < size; k++) {
+                System.arraycopy(greedy, 0, genes[k], 0, greedy.length);
+            }
+            ForkJoinPool.commonPool().invoke(new Breed(0, size, true));
+            swap();
+            double best = Double.MAX_VALUE;
+            int improved = 0;
+            while (generation < MAX_GENERATIONS && generation - improved < STALL_GENERATIONS
+                    && (deadline == Long.MAX_VALUE || System.nanoTime() < deadline)) {
+                rankElite();
+                if (fitness[elite[0]] < best) {
+                    best = fitness[elite[0]];
+                    improved = generation;
+                }
+                generation++;
+                for (int e = 0; e < ELITE; e++) {
+                    System.arraycopy(genes[elite[e]], 0, next[e], 0, work.length);
+                    nextFitness[e] = fitness[elite[e]];
+                }
+                ForkJoinPool.commonPool().invoke(new Breed(ELITE, size, false));
+                swap();
+            }
+            rankElite();
+            return genes[elite[0]];
+        }
+
+        // Projected makespan of an assignment, leaving the per-VM backlogs in loads
+        double makespan(int[] assignment, double[] loads) {
+            System.arraycopy(base, 0, loads, 0, loads.length);
+            for (int i = 0; i < assignment.length; i++) {
+                loads[assignment[i]] += work[i] / capacity[assignment[i]];
+            }
+            double max = 0;
+            for (double load : loads) {
+                max = Math.max(max, load);
+            }
+            return max;
+        }
+
+        // Fills elite with the ELITE fittest indexes, best first; ties keep the lower index first
+        private void rankElite() {
+            int filled = 0;
+            for (int k = 0; k < size; k++) {
+                if (filled == ELITE && fitness[k] >= fitness[elite[ELITE - 1]]) {
+                    continue;
+                }
+                int at = filled < ELITE ? filled++ : ELITE - 1;
+                while (at > 0 && fitness[k] < fitness[elite[at - 1]]) {
+                    elite[at] = elite[at - 1];
+                    at--;
+                }
+                elite[at] = k;
+            }
+        }
+
+        private void swap() {
+            int[][] genesTmp = genes;
+            genes = next;
+            next = genesTmp;
+            double[] fitnessTmp = fitness;
+            fitness = nextFitness;
+            nextFitness = fitnessTmp;
+        }
+
+        // Fills next[k] and nextFitness[k] for k in [from, to); the first call only mutates the seed copies
+        private final class Breed extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            final int from;
+            final int to;
+            final boolean initial;
+
+            Breed(int from, int to, boolean initial) {
+                this.from = from;
+                this.to = to;
+                this.initial = initial;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from > 1 && (long) (to - from) * work.length > GRAIN) {
+                    int middle = (from + to) >>> 1;
+                    invokeAll(new Breed(from, middle, initial), new Breed(middle, to, initial));
+                    return;
+                }
+                double[] loads = new double[capacity.length];
+                for (int k = from; k < to; k++) {
+                    SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + generation * (long) size + k);
+                    int[] child = next[k];
+                    if (initial) {
+                        System.arraycopy(genes[k], 0, child, 0, work.length);
+                        if (k > 0) {
+                            mutate(child, random, loads);
+                        }
+                    } else {
+                        crossover(genes[tournament(random)], genes[tournament(random)], child, random);
+                        mutate(child, random, loads);
+                    }
+                    nextFitness[k] = makespan(child, loads);
+                }
+            }
+
+            private int tournament(SplittableRandom random) {
+                int a = random.nextInt(size);
+                int b = random.nextInt(size);
+                return fitness[a] <= fitness[b] ? a : b;
+            }
+
+            private void crossover(int[] first, int[] second, int[] child, SplittableRandom random) {
+                int n = work.length;
+                int cut1 = random.nextInt(n);
+                int cut2 = random.nextInt(n);
+                int lo = Math.min(cut1, cut2);
+                int hi = Math.max(cut1, cut2);
+                System.arraycopy(first, 0, child, 0, lo);
+                System.arraycopy(second, lo, child, lo, hi - lo);
+                System.arraycopy(first, hi, child, hi, n - hi);
+            }
+
+            // Random reassignments, then a few moves from the most to the least loaded VM
+            private void mutate(int[] child, SplittableRandom random, double[] loads) {
+                int n = work.length;
+                int vms = capacity.length;
+                int moves = Math.max(1, (int) (MUTATION_RATE * n));
+                for (int m = 0; m < moves; m++) {
+                    child[random.nextInt(n)] = random.nextInt(vms);
+                }
+                makespan(child, loads);
+                for (int m = 0; m < REBALANCE_MOVES; m++) {
+                    int hottest = 0;
+                    int coldest = 0;
+                    for (int j = 1; j < vms; j++) {
+                        if (loads[j] > loads[hottest]) {
+                            hottest = j;
+                        }
+                        if (loads[j] < loads[coldest]) {
+                            coldest = j;
+                        }
+                    }
+                    // First cloudlet of the hottest VM from a random position
+                    int start = random.nextInt(n);
+                    int moved = -1;
+                    for (int s = 0; s < n; s++) {
+                        int i = start + s < n ? start + s : start + s - n;
+                        if (child[i] == hottest) {
+                            moved = i;
+                            break;
+                        }
+                    }
+                    if (moved < 0 || loads[coldest] + work[moved] / capacity[coldest] >= loads[hottest]) {
+                        break;
+                    }
+                    child[moved] = coldest;
+                    loads[hottest] -= work[moved] / capacity[hottest];
+                    loads[coldest] += work[moved] / capacity[coldest];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Log;
+
+import javax.management.*;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/*
+ * Named counters, timers and distributions for the drivers, the broker and
+ * the binding policies, cheap enough to leave on for large runs:
+ *
+ *   Counter       a long that is only ever incremented
+ *   Timer         durations in microseconds; hot paths time one call in
+ *                 `sampleEvery` and count them all
+ *   Distribution  sampled values (queue sizes), with the latest one
+ *
+ * Timers and distributions keep a LatencyHistogram, so memory is fixed per
+ * metric. Metrics are created once by name and kept in static fields by the
+ * code that updates them. The simulation is single threaded; the JMX and
+ * file exporters read without locking, so their values are approximate while
+ * a run is going. -Dinstrument=false turns every update into a no-op.
+ *
+ * export() registers an MBean (org.cloudbus.cloudsim.examples:type=Instrumentation)
+ * with one attribute per metric value, and with -Dinstrument.file=<file>
+ * appends "seconds,metric,value" rows every -Dinstrument.interval wall
+ * seconds (10) and once more on shutdown.
+ */
+public final class Instrumentation {
+    public static final boolean ENABLED = !"false".equals(System.getProperty("instrument"));
+    private static final String MBEAN_NAME = "org.cloudbus.cloudsim.examples:type=Instrumentation";
+
+    private static final Map<String, Object> metrics = new TreeMap<>();
+    private static final long started = System.nanoTime();
+    private static ScheduledExecutorService dumper;
+    private static String dumpPath;
+
+    private Instrumentation() {
+    }
+
+    public static synchronized Counter counter(String name) {
+        return (Counter) metrics.computeIfAbsent(name, n -> new Counter());
+    }
+
+    public static Timer timer(String name) {
+        return timer(name, 1);
+    }
+
+    public static synchronized Timer timer(String name, int sampleEvery) {
+        return (Timer) metrics.computeIfAbsent(name, n -> new Timer(sampleEvery));
+    }
+
+    public static synchronized Distribution distribution(String name) {
+        return (Distribution) metrics.computeIfAbsent(name, n -> new Distribution());
+    }
+
+    // Times each batch and counts its items, e.g. around a binding policy; name.batch and name.items
+    public static <T> Consumer<List<T>> timedBatches(String name, Consumer<List<T>> action) {
+        Timer timer = timer(name + ".batch");
+        Counter items = counter(name + ".items");
+        return batch -> {
+            long started = timer.start();
+            action.accept(batch);
+            timer.stop(started);
+            items.add(batch.size());
+        };
+    }
+
+    // Current value of every metric, as name.attribute -> number
+    public static synchronized Map<String, Number> snapshot() {
+        Map<String, Number> values = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : metrics.entrySet()) {
+            String name = entry.getKey();
+            Object metric = entry.getValue();
+            if (metric instanceof Counter) {
+                values.put(name + ".count", ((Counter) metric).get());
+            } else if (metric instanceof Timer) {
+                Timer timer = (Timer) metric;
+                values.put(name + ".count", timer.count);
+                values.put(name + ".totalMs", timer.getTotalMillis());
+                values.put(name + ".meanUs", timer.histogram.getMean());
+                values.put(name + ".p99Us", timer.histogram.percentile(99));
+                values.put(name + ".maxUs", timer.histogram.getMax());
+            } else {
+                Distribution distribution = (Distribution) metric;
+                values.put(name + ".last", distribution.last);
+                values.put(name + ".mean", distribution.histogram.getMean());
+                values.put(name + ".p99", distribution.histogram.percentile(99));
+                values.put(name + ".max", distribution.histogram.getMax());
+            }
+        }
+        return values;
+    }
+
+    // JMX registration and, with -Dinstrument.file, the periodic dump; safe to call more than once
+    public static synchronized void export() {
+        if (!ENABLED) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new Exporter(), name);
+            }
+        } catch (JMException e) {
+            System.err.println("Instrumentation: JMX registration failed: " + e);
+        }
+        dumpPath = System.getProperty("instrument.file");
+        if (dumpPath != null && dumper == null) {
+            long interval = (long) (1000 * Double.parseDouble(System.getProperty("instrument.interval", "10")));
+            dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "instrumentation-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+            dumper.scheduleAtFixedRate(Instrumentation::dump, interval, interval, TimeUnit.MILLISECONDS);
+            Runtime.getRuntime().addShutdownHook(new Thread(Instrumentation::dump));
+        }
+    }
+
+    public static void printReport() {
+        if (!ENABLED) {
+            return;
+        }
+        Log.printLine();
+        Log.printLine("========== INSTRUMENTATION ==========");
+        StringBuilder line = new StringBuilder();
+        String metric = null;
+        for (Map.Entry<String, Number> entry : snapshot().entrySet()) {
+            int dot = entry.getKey().lastIndexOf('.');
+            String name = entry.getKey().substring(0, dot);
+            if (!name.equals(metric)) {
+                if (metric != null) {
+                    Log.printLine(line.toString());
+                }
+                metric = name;
+                line.setLength(0);
+                line.append(name).append(':');
+            }
+            Number value = entry.getValue();
+            line.append(' ').append(entry.getKey().substring(dot + 1)).append(' ')
+                    .append(value instanceof Double ? String.format("%.2f", value.doubleValue()) : value.toString());
+        }
+        if (metric != null) {
+            Log.printLine(line.toString());
+        }
+    }
+
+    // Appends the current values to the dump file
+    public static synchronized void dump() {
+        if (dumpPath == null) {
+            return;
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        try (PrintStream out = new PrintStream(Files.newOutputStream(Paths.get(dumpPath), StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND), false, StandardCharsets.UTF_8.name())) {
+            for (Map.Entry<String, Number> entry : snapshot().entrySet()) {
+                out.print(String.format("%.3f", seconds));
+                out.print(',');
+                out.print(entry.getKey());
+                out.print(',');
+                out.println(entry.getValue());
+            }
+        } catch (IOException e) {
+            System.err.println("Instrumentation: failed to write " + dumpPath + ": " + e);
+        }
+    }
+
+    public static final class Counter {
+        private long value;
+
+        public void increment() {
+            if (ENABLED) {
+                value++;
+            }
+        }
+
+        public void add(long delta) {
+            if (ENABLED) {
+                value += delta;
+            }
+        }
+
+        public long get() {
+            return value;
+        }
+    }
+
+    /*
+     * Use as
+     *   long started = timer.start();
+     *   ...
+     *   timer.stop(started);
+     * start() returns 0 for calls that are not sampled, and stop(0) only counts.
+     */
+    public static final class Timer {
+        private final int sampleEvery;
+        private final LatencyHistogram histogram = new LatencyHistogram(0.1); // microseconds
+        private long count;
+        private long sampled;
+        private double totalNanos;
+        private int tick;
+
+        Timer(int sampleEvery) {
+            this.sampleEvery = Math.max(1, sampleEvery);
+        }
+
+        public long start() {
+            if (!ENABLED || ++tick < sampleEvery) {
+                return 0;
+            }
+            tick = 0;
+            return System.nanoTime();
+        }
+
+        public void stop(long started) {
+            if (!ENABLED) {
+                return;
+            }
+            count++;
+            if (started != 0) {
+                long nanos = System.nanoTime() - started;
+                histogram.record(nanos / 1000.0);
+                totalNanos += nanos;
+                sampled++;
+            }
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        // Sampled time scaled up to all calls
+        public double getTotalMillis() {
+            return sampled == 0 ? 0 : totalNanos / 1e6 * count / sampled;
+        }
+    }
+
+    // Wall time of consecutive phases of a run, as timers <prefix>.<phase>; enter() ends the previous phase
+    public static final class Phases {
+        private final String prefix;
+        private Timer current;
+        private long started;
+
+        public Phases(String prefix) {
+            this.prefix = prefix;
+        }
+
+        public void enter(String phase) {
+            end();
+            current = timer(prefix + "." + phase);
+            started = current.start();
+        }
+
+        public void end() {
+            if (current != null) {
+                current.stop(started);
+                current = null;
+            }
+        }
+    }
+
+    public static final class Distribution {
+        private final LatencyHistogram histogram = new LatencyHistogram(1);
+        private long last;
+
+        public void record(long value) {
+            if (ENABLED) {
+                histogram.record(value);
+                last = value;
+            }
+        }
+    }
+
+    // Read-only MBean with one attribute per snapshot value
+    private static final class Exporter implements DynamicMBean {
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Number value = snapshot().get(attribute);
+            if (value == null) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            return value;
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            Map<String, Number> values = snapshot();
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                if (values.containsKey(attribute)) {
+                    list.add(new Attribute(attribute, values.get(attribute)));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Instrumentation attributes are read-only");
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+            throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            Map<String, Number> values = snapshot();
+            MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[values.size()];
+            int i = 0;
+            for (Map.Entry<String, Number> entry : values.entrySet()) {
+                attributes[i++] = new MBeanAttributeInfo(entry.getKey(), entry.getValue().getClass().getName(),
+                        entry.getKey(), true, false, false);
+            }
+            return new MBeanInfo(Instrumentation.class.getName(), "Simulation instrumentation", attributes,
+                    null, null, null);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/*
+ * Samples simulator internals into Instrumentation distributions every
+ * `interval` simulated seconds until the broker terminates: the size of
+ * CloudSim's future event queue, and the broker's pending and in-flight
+ * cloudlets.
+ *
+ * CloudSim keeps the future queue in a private static field with no
+ * accessor, so it is read by reflection once; if that fails (another CloudSim
+ * version) only the broker figures are sampled.
+ */
+public class InstrumentationProbe extends SimEntity {
+    private static final int PROBE = 61006;
+
+    private static final Instrumentation.Distribution FUTURE_QUEUE = Instrumentation.distribution("sim.futureQueue");
+    private static final Instrumentation.Distribution PENDING = Instrumentation.distribution("broker.pending");
+    private static final Instrumentation.Distribution IN_FLIGHT = Instrumentation.distribution("broker.inFlight");
+
+    private final StreamingDatacenterBroker broker;
+    private final double interval;
+    private Object futureQueue;
+    private Method futureQueueSize;
+
+    public InstrumentationProbe(String name, StreamingDatacenterBroker broker, double interval) {
+        super(name);
+        this.broker = broker;
+        this.interval = interval;
+        try {
+            Field field = CloudSim.class.getDeclaredField("future");
+            field.setAccessible(true);
+            futureQueue = field.get(null);
+            futureQueueSize = futureQueue.getClass().getMethod("size");
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            futureQueue = null;
+        }
+    }
+
+    @Override
+    public void startEntity() {
+        schedule(getId(), interval, PROBE);
+    }
+
+    @Override
+    public void processEvent(SimEvent ev) {
+        if (ev.getTag() != PROBE) {
+            return;
+        }
+        if (futureQueue != null) {
+            try {
+                FUTURE_QUEUE.record(((Number) futureQueueSize.invoke(futureQueue)).longValue());
+            } catch (ReflectiveOperationException e) {
+                futureQueue = null;
+            }
+        }
+        PENDING.record(broker.getPendingCount());
+        IN_FLIGHT.record(broker.getInFlightCount());
+        if (!broker.isTerminated()) {
+            schedule(getId(), interval, PROBE);
+        }
+    }
+
+    @Override
+    public void shutdownEntity() {
+    }
+}
@@ -0,0 +1,141 @@
+package org.cloudbus.cloudsim.examples;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/*
+ * Fixed-memory log-linear histogram in the style of HdrHistogram.
+ *
+ * Values are recorded in units of `resolution` (1 ms for seconds with the
+ * default). Each power of two is split into 2^SUB_BITS linear sub-buckets, so
+ * any percentile of at least 2^SUB_BITS units is reported within 1/2^SUB_BITS
+ * relative error (smaller ones to the unit), and the whole histogram is a
+ * single long[] whatever the number of samples.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int OCTAVES = 64 - SUB_BITS;
+
+    private final double resolution;
+    private final long[] counts = new long[(OCTAVES + 1) * SUB_BUCKETS];
+    private long total;
+    private double sum;
+    private double min = Double.MAX_VALUE;
+    private double max;
+
+    public LatencyHistogram() {
+        this(0.001);
+    }
+
+    public LatencyHistogram(double resolution) {
+        this.resolution = resolution;
+    }
+
+    public void record(double value) {
+        if (value < 0 || Double.isNaN(value)) {
+            value = 0;
+        }
+        counts[index((long) (value / resolution))]++;
+        total++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    // Value at the given percentile (0-100), upper edge of the bucket it falls in
+    public double percentile(double p) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(p / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, upperEdge(i) * resolution);
+            }
+        }
+        return max;
+    }
+
+    public long getCount() {
+        return total;
+    }
+
+    public double getMean() {
+        return total == 0 ? 0 : sum / total;
+    }
+
+    public double getMin() {
+        return total == 0 ? 0 : min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public void reset() {
+        java.util.Arrays.fill(counts, 0);
+        total = 0;
+        sum = 0;
+        min = Double.MAX_VALUE;
+        max = 0;
+    }
+
+    // Only the non-empty buckets are written, as index/count pairs
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(total);
+        out.writeDouble(sum);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        int used = 0;
+        for (long count : counts) {
+            if (count != 0) {
+                used++;
+            }
+        }
+        out.writeInt(used);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                out.writeShort(i);
+                out.writeLong(counts[i]);
+            }
+        }
+    }
+
+    public void readFrom(DataInput in) throws IOException {
+        reset();
+        total = in.readLong();
+        sum = in.readDouble();
+        min = in.readDouble();
+        max = in.readDouble();
+        for (int used = in.readInt(); used > 0; used--) {
+            counts[in.readUnsignedShort()] = in.readLong();
+        }
+    }
+
+    /*
+     * Values below 2 x SUB_BUCKETS map one to one; above that the octave
+     * [2^k, 2^(k+1)) has SUB_BUCKETS slots of width 2^(k - SUB_BITS), so a
+     * slot is never wider than 1/SUB_BUCKETS of the values in it.
+     */
+    private static int index(long units) {
+        if (units < 2 * SUB_BUCKETS) {
+            return (int) units;
+        }
+        int octave = 63 - Long.numberOfLeadingZeros(units) - SUB_BITS;
+        int sub = (int) (units >>> octave) - SUB_BUCKETS;
+        return (octave + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static double upperEdge(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index + 1;
+        }
+        int octave = index / SUB_BUCKETS - 1;
+        int sub = index % SUB_BUCKETS + SUB_BUCKETS;
+        return (double) ((long) (sub + 1) << octave);
+    }
+}
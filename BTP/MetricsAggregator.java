@@ -0,0 +1,251 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Consumer;
+
+/*
+ * Online metrics over finished cloudlets, in memory that does not grow with the
+ * number of cloudlets: makespan, waiting and response time percentiles from
+ * LatencyHistogram, throughput per time window and per-VM / per-datacenter
+ * utilization. Meant to be the broker's completion listener (directly or
+ * chained with a ResultsWriter via andThen).
+ *
+ * Waiting time is exec start minus arrival, response time is finish minus
+ * arrival; cloudlets without a trace arrival time count as arriving when the
+ * datacenter received them. Utilization is work done (MI) over what the VM or
+ * datacenter could have done by the makespan; a datacenter's capacity is that
+ * of every VM created in it (see vmCreated), whether or not it ran anything.
+ */
+public class MetricsAggregator implements Consumer<Cloudlet> {
+    private static final int THROUGHPUT_WINDOWS = 64;
+
+    private final LatencyHistogram waiting = new LatencyHistogram();
+    private final LatencyHistogram response = new LatencyHistogram();
+    private final long[] throughput = new long[THROUGHPUT_WINDOWS];
+    private double windowWidth;
+    private long finished;
+    private long failed;
+    private double makespan;
+    private double timeOffset;
+    private double totalDataTransferred;
+    private double totalExecutionTime;
+    private double[] vmCapacity = new double[16];
+    private double[] vmWork = new double[16];
+    private int[] vmDatacenter = new int[16];
+    private final Map<Integer, double[]> datacenters = new TreeMap<>(); // capacity, work, cloudlets
+
+    // Throughput starts with windows of initialWindow seconds and widens them as the simulation runs on
+    public MetricsAggregator(List<? extends Vm> vmList, double initialWindow) {
+        this.windowWidth = initialWindow;
+        Arrays.fill(vmDatacenter, -1);
+        for (Vm vm : vmList) {
+            ensureVm(vm.getId());
+            vmCapacity[vm.getId()] = vm.getMips() * vm.getNumberOfPes();
+        }
+    }
+
+    @Override
+    public void accept(Cloudlet cloudlet) {
+        if (cloudlet.getCloudletStatus() != Cloudlet.SUCCESS) {
+            failed++;
+            return;
+        }
+        finished++;
+        double arrival = cloudlet instanceof TraceCloudlet
+                ? ((TraceCloudlet) cloudlet).getArrivalTime() : cloudlet.getSubmissionTime();
+        double finish = cloudlet.getFinishTime();
+        makespan = Math.max(makespan, timeOffset + finish);
+        waiting.record(cloudlet.getExecStartTime() - arrival);
+        response.record(finish - arrival);
+        totalDataTransferred += cloudlet.getCloudletFileSize() / 1024.0; // Convert to MB
+        totalExecutionTime += cloudlet.getActualCPUTime();
+        recordThroughput(timeOffset + finish);
+
+        int vmId = cloudlet.getVmId();
+        if (vmId >= 0) {
+            ensureVm(vmId);
+            vmWork[vmId] += cloudlet.getCloudletLength() * (double) cloudlet.getNumberOfPes();
+            double[] dc = datacenters.computeIfAbsent(cloudlet.getResourceId(), id -> new double[3]);
+            dc[1] += cloudlet.getCloudletLength() * (double) cloudlet.getNumberOfPes();
+            dc[2]++;
+        }
+    }
+
+    // Called by the broker for every VM created, so idle VMs count towards their datacenter's capacity
+    public void vmCreated(Vm vm, int datacenterId) {
+        int vmId = vm.getId();
+        ensureVm(vmId);
+        if (vmDatacenter[vmId] == datacenterId) {
+            return;
+        }
+        if (vmDatacenter[vmId] >= 0) {
+            datacenters.get(vmDatacenter[vmId])[0] -= vmCapacity[vmId];
+        }
+        vmCapacity[vmId] = vm.getMips() * vm.getNumberOfPes();
+        vmDatacenter[vmId] = datacenterId;
+        datacenters.computeIfAbsent(datacenterId, id -> new double[3])[0] += vmCapacity[vmId];
+    }
+
+    // Simulated time already elapsed before this run started, when resuming from a checkpoint
+    public void setTimeOffset(double timeOffset) {
+        this.timeOffset = timeOffset;
+    }
+
+    // Every accumulator, so a resumed run reports over the whole simulation; capacities come from vmCreated
+    public void writeTo(DataOutput out) throws IOException {
+        waiting.writeTo(out);
+        response.writeTo(out);
+        out.writeDouble(windowWidth);
+        for (long count : throughput) {
+            out.writeLong(count);
+        }
+        out.writeLong(finished);
+        out.writeLong(failed);
+        out.writeDouble(makespan);
+        out.writeDouble(totalDataTransferred);
+        out.writeDouble(totalExecutionTime);
+        out.writeInt(vmWork.length);
+        for (double work : vmWork) {
+            out.writeDouble(work);
+        }
+        out.writeInt(datacenters.size());
+        for (Map.Entry<Integer, double[]> entry : datacenters.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeDouble(entry.getValue()[1]);
+            out.writeDouble(entry.getValue()[2]);
+        }
+    }
+
+    // Capacities come from the VMs of this run, so the VM list must match the checkpointed run
+    public void readFrom(DataInput in) throws IOException {
+        waiting.readFrom(in);
+        response.readFrom(in);
+        windowWidth = in.readDouble();
+        for (int i = 0; i < THROUGHPUT_WINDOWS; i++) {
+            throughput[i] = in.readLong();
+        }
+        finished = in.readLong();
+        failed = in.readLong();
+        makespan = in.readDouble();
+        totalDataTransferred = in.readDouble();
+        totalExecutionTime = in.readDouble();
+        int vms = in.readInt();
+        ensureVm(vms - 1);
+        for (int id = 0; id < vms; id++) {
+            vmWork[id] = in.readDouble();
+        }
+        for (double[] dc : datacenters.values()) {
+            dc[1] = 0;
+            dc[2] = 0;
+        }
+        for (int count = in.readInt(); count > 0; count--) {
+            double[] dc = datacenters.computeIfAbsent(in.readInt(), id -> new double[3]);
+            dc[1] = in.readDouble();
+            dc[2] = in.readDouble();
+        }
+    }
+
+    public long getFinished() {
+        return finished;
+    }
+
+    public double getMakespan() {
+        return makespan;
+    }
+
+    public LatencyHistogram getWaitingTimes() {
+        return waiting;
+    }
+
+    public LatencyHistogram getResponseTimes() {
+        return response;
+    }
+
+    public double getVmUtilization(int vmId) {
+        if (vmId >= vmWork.length || vmCapacity[vmId] <= 0 || makespan <= 0) {
+            return 0;
+        }
+        return vmWork[vmId] / (vmCapacity[vmId] * makespan);
+    }
+
+    public void printReport() {
+        Log.printLine();
+        Log.printLine("========== METRICS ==========");
+        Log.printLine("Cloudlets finished: " + finished + (failed > 0 ? " (" + failed + " failed)" : ""));
+        Log.printLine("Total amount of data forwarded: " + totalDataTransferred + " MB");
+        Log.printLine("Total execution time: " + totalExecutionTime + " seconds");
+        Log.printLine("Makespan: " + makespan + " seconds");
+        Log.printLine("Throughput: " + (makespan > 0 ? finished / makespan : 0) + " cloudlets/second");
+        Log.printLine(String.format("Waiting time (s): mean %.2f p50 %.2f p95 %.2f p99 %.2f max %.2f",
+                waiting.getMean(), waiting.percentile(50), waiting.percentile(95), waiting.percentile(99), waiting.getMax()));
+        Log.printLine(String.format("Response time (s): mean %.2f p50 %.2f p95 %.2f p99 %.2f max %.2f",
+                response.getMean(), response.percentile(50), response.percentile(95), response.percentile(99), response.getMax()));
+
+        StringBuilder series = new StringBuilder("Throughput per " + windowWidth + "s window:");
+        int last = THROUGHPUT_WINDOWS - 1;
+        while (last > 0 && throughput[last] == 0) {
+            last--;
+        }
+        for (int i = 0; i <= last; i++) {
+            series.append(' ').append(throughput[i]);
+        }
+        Log.printLine(series.toString());
+
+        double vmSum = 0;
+        double vmMin = Double.MAX_VALUE;
+        double vmMax = 0;
+        int vms = 0;
+        for (int id = 0; id < vmCapacity.length; id++) {
+            if (vmCapacity[id] > 0) {
+                double utilization = getVmUtilization(id);
+                vmSum += utilization;
+                vmMin = Math.min(vmMin, utilization);
+                vmMax = Math.max(vmMax, utilization);
+                vms++;
+            }
+        }
+        if (vms > 0) {
+            Log.printLine(String.format("VM utilization: mean %.2f%% min %.2f%% max %.2f%% over %d VMs",
+                    100 * vmSum / vms, 100 * vmMin, 100 * vmMax, vms));
+        }
+        for (Map.Entry<Integer, double[]> entry : datacenters.entrySet()) {
+            double[] dc = entry.getValue();
+            double utilization = dc[0] > 0 && makespan > 0 ? dc[1] / (dc[0] * makespan) : 0;
+            Log.printLine(String.format("%s: %d cloudlets, utilization %.2f%%",
+                    CloudSim.getEntityName(entry.getKey()), (long) dc[2], 100 * utilization));
+        }
+    }
+
+    // Fixed number of windows; when time runs past the last one, neighbours merge and the width doubles
+    private void recordThroughput(double time) {
+        int index = (int) (time / windowWidth);
+        while (index >= THROUGHPUT_WINDOWS) {
+            for (int i = 0; i < THROUGHPUT_WINDOWS / 2; i++) {
+                throughput[i] = throughput[2 * i] + throughput[2 * i + 1];
+            }
+            Arrays.fill(throughput, THROUGHPUT_WINDOWS / 2, THROUGHPUT_WINDOWS, 0);
+            windowWidth *= 2;
+            index = (int) (time / windowWidth);
+        }
+        throughput[index]++;
+    }
+
+    private void ensureVm(int vmId) {
+        if (vmId >= vmCapacity.length) {
+            int size = Math.max(vmId + 1, vmCapacity.length * 2);
+            int old = vmDatacenter.length;
+            vmCapacity = Arrays.copyOf(vmCapacity, size);
+            vmWork = Arrays.copyOf(vmWork, size);
+            vmDatacenter = Arrays.copyOf(vmDatacenter, size);
+            Arrays.fill(vmDatacenter, old, size, -1);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Vm;
+
+import java.util.*;
+
+/*
+ * Shortest-job-first / minimum-completion-time binder.
+ *
+ * Every VM carries a backlog: the projected time at which the work already bound
+ * to it finishes. A cloudlet goes to the VM where backlog + its own run time is
+ * smallest. VMs of equal capacity (MIPS x PEs) are kept in one min-heap on
+ * backlog, so only the head of each capacity class has to be compared; binding
+ * costs O(K log V) for K distinct VM types, O(log V) for a homogeneous pool.
+ */
+public class MinCompletionTimeBinder {
+    private static class Slot {
+        final Vm vm;
+        final int index;
+        double backlog;
+
+        Slot(Vm vm, int index) {
+            this.vm = vm;
+            this.index = index;
+        }
+    }
+
+    private final List<PriorityQueue<Slot>> classes = new ArrayList<>();
+    private final List<Double> capacities = new ArrayList<>();
+    private final Slot[] slots;
+
+    public MinCompletionTimeBinder(List<? extends Vm> vmList) {
+        slots = new Slot[vmList.size()];
+        Map<Double, PriorityQueue<Slot>> byCapacity = new LinkedHashMap<>();
+        for (int i = 0; i < slots.length; i++) {
+            Vm vm = vmList.get(i);
+            slots[i] = new Slot(vm, i);
+            byCapacity.computeIfAbsent(capacity(vm), c -> new PriorityQueue<>(Comparator
+                    .comparingDouble((Slot s) -> s.backlog)
+                    .thenComparingInt(s -> s.index))).add(slots[i]);
+        }
+        for (Map.Entry<Double, PriorityQueue<Slot>> entry : byCapacity.entrySet()) {
+            capacities.add(entry.getKey());
+            classes.add(entry.getValue());
+        }
+    }
+
+    // Binds every cloudlet; shortest first when sjf is set, otherwise in list order
+    public void bindAll(List<? extends Cloudlet> cloudlets, boolean sjf) {
+        if (sjf) {
+            cloudlets.sort(Comparator.comparingLong(Cloudlet::getCloudletLength));
+        }
+        for (Cloudlet cloudlet : cloudlets) {
+            bind(cloudlet);
+        }
+    }
+
+    // Binds one cloudlet to the VM with the earliest projected finish; null if there are no VMs
+    public Vm bind(Cloudlet cloudlet) {
+        return bind(cloudlet, 0);
+    }
+
+    // As bind(cloudlet), for a cloudlet arriving at time now; idle VMs start it immediately
+    public Vm bind(Cloudlet cloudlet, double now) {
+        int best = -1;
+        double bestFinish = Double.MAX_VALUE;
+        double work = cloudlet.getCloudletLength() * (double) cloudlet.getNumberOfPes();
+        for (int c = 0; c < classes.size(); c++) {
+            Slot head = classes.get(c).peek();
+            double finish = Math.max(head.backlog, now) + work / capacities.get(c);
+            if (finish < bestFinish) {
+                bestFinish = finish;
+                best = c;
+            }
+        }
+        if (best < 0) {
+            return null;
+        }
+        PriorityQueue<Slot> queue = classes.get(best);
+        Slot slot = queue.poll();
+        slot.backlog = bestFinish;
+        queue.add(slot);
+        cloudlet.setVmId(slot.vm.getId());
+        return slot.vm;
+    }
+
+    public int getVmCount() {
+        return slots.length;
+    }
+
+    public double getBacklog(int index) {
+        return slots[index].backlog;
+    }
+
+    // Replaces every backlog, e.g. with an assignment worked out elsewhere; indexes follow the VM list
+    public void setBacklogs(double[] backlogs) {
+        for (int i = 0; i < slots.length; i++) {
+            slots[i].backlog = backlogs[i];
+        }
+        for (PriorityQueue<Slot> queue : classes) {
+            List<Slot> members = new ArrayList<>(queue);
+            queue.clear();
+            queue.addAll(members);
+        }
+    }
+
+    // Largest projected finish time across all VMs
+    public double getMakespan() {
+        double makespan = 0;
+        for (Slot slot : slots) {
+            makespan = Math.max(makespan, slot.backlog);
+        }
+        return makespan;
+    }
+
+    private static double capacity(Vm vm) {
+        return vm.getMips() * vm.getNumberOfPes();
+    }
+}
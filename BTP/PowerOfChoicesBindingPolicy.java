@@ -0,0 +1,106 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/*
+ * Power of d choices: each cloudlet samples d VMs at random and goes to the one
+ * that would finish it first given the work already bound to it. Each decision
+ * costs O(d) whatever the pool size. With d = 2 the load spread is already
+ * close to what a full scan gives.
+ *
+ * A VM's projected finish time only moves forward, and is first raised to the
+ * arrival time, so idle VMs catch up with the clock without completion events.
+ */
+public class PowerOfChoicesBindingPolicy implements CloudletBindingPolicy {
+    public static final String NAME = "p2c";
+
+    private final int choices;
+    private final Random random;
+    private final Map<List<? extends Vm>, State> states = new IdentityHashMap<>();
+
+    public PowerOfChoicesBindingPolicy(int choices, long seed) {
+        this.choices = Math.max(1, choices);
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void bind(List<? extends Vm> vmList, List<? extends Cloudlet> cloudletList, UtilizationHistory history) {
+        if (vmList.isEmpty()) {
+            return;
+        }
+        State state = state(vmList);
+        for (Cloudlet cloudlet : cloudletList) {
+            cloudlet.setVmId(state.assign(cloudlet, StreamingDatacenterBroker.arrivalTimeOf(cloudlet)));
+        }
+    }
+
+    @Override
+    public int selectVm(Cloudlet cloudlet, List<? extends Vm> vmList, UtilizationHistory history) {
+        if (vmList.isEmpty()) {
+            return -1;
+        }
+        return state(vmList).assign(cloudlet, CloudSim.clock());
+    }
+
+    private State state(List<? extends Vm> vmList) {
+        State state = states.get(vmList);
+        if (state == null || state.ids.length != vmList.size()) {
+            state = new State(vmList);
+            states.put(vmList, state);
+        }
+        return state;
+    }
+
+    private class State {
+        final int[] ids;
+        final double[] mips;
+        final int[] pes;
+        final double[] finish;
+
+        State(List<? extends Vm> vmList) {
+            int size = vmList.size();
+            ids = new int[size];
+            mips = new double[size];
+            pes = new int[size];
+            finish = new double[size];
+            for (int i = 0; i < size; i++) {
+                Vm vm = vmList.get(i);
+                ids[i] = vm.getId();
+                mips[i] = vm.getMips();
+                pes[i] = vm.getNumberOfPes();
+            }
+        }
+
+        int assign(Cloudlet cloudlet, double now) {
+            int best = -1;
+            double bestFinish = Double.MAX_VALUE;
+            for (int k = 0; k < choices; k++) {
+                int candidate = random.nextInt(ids.length);
+                double candidateFinish = Math.max(finish[candidate], now) + runTime(cloudlet, candidate);
+                if (candidateFinish < bestFinish) {
+                    best = candidate;
+                    bestFinish = candidateFinish;
+                }
+            }
+            finish[best] = bestFinish;
+            return ids[best];
+        }
+
+        // Seconds of the VM's whole capacity the cloudlet takes
+        private double runTime(Cloudlet cloudlet, int index) {
+            return cloudlet.getCloudletLength() * (double) cloudlet.getNumberOfPes() / (mips[index] * pes[index]);
+        }
+    }
+}
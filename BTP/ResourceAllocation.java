@@ -1,264 +1,70 @@
 package org.cloudbus.cloudsim.examples;
 
 import org.cloudbus.cloudsim.*;
-import org.cloudbus.cloudsim.core.CloudSim;
-import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
-import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
-import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
 
-import java.text.DecimalFormat;
 import java.util.*;
 
 public class ResourceAllocation {
-    private static final int HOST_MIPS = 1000;
-    private static final int HOST_RAM = 2048;
-    private static final long HOST_STORAGE = 1000000;
-    private static final int HOST_BW = 10000;
-    private static final int VM_PES_NUMBER = 1;
-    private static final int VM_RAM = 2048;
-    private static final long VM_SIZE = 10000;
-    private static final long VM_BW = 1000;
-    private static final String VM_VMM = "Xen";
     private static final long CLOUDLET_FILE_SIZE = 300;
     private static final long CLOUDLET_OUTPUT_SIZE = 300;
-    private static final double CPU_THRESHOLD = 0.8;
-    private static final double CPU_HISTORY_WINDOW = 10;
     private static final int NUM_DATACENTERS = 4;
-    private static Map<Vm, List<Double>> cpuUsageHistory = new HashMap<>();
-    private static List<Datacenter> datacenterList;
-    private static List<Cloudlet> cloudletList;
-    private static List<Vm> vmList;
+    // Stateless, so one instance is shared by every cloudlet
+    private static final UtilizationModel UTILIZATION_MODEL = new UtilizationModelFull();
+    private static final long SEED = 42; // Fixed seed for the arrival times, so runs can be compared
 
     public static void main(String[] args) {
         Log.printLine("Starting Dynamic Resource Allocation Simulation");
 
         try {
-            int numUser = 1;
-            boolean traceFlag = false;
             Scanner scanner = new Scanner(System.in);
-            System.out.print("Enter NO. of Vm's: ");
-            int NUM_VMS = scanner.nextInt();
-            System.out.print("Enter NO. of Cloudlets: ");
-            int NUM_CLOUDLETS= scanner.nextInt();
-
-            CloudSim.init(numUser, null, traceFlag);
-            Random rand = new Random();
-            datacenterList = new ArrayList<>();
-            for (int i = 0; i < NUM_DATACENTERS; i++) {
-                Datacenter datacenter = createDatacenter("Datacenter_" + i);
-                datacenterList.add(datacenter);
-            }
-
-            DatacenterBroker broker = createBroker();
-            int brokerId = broker.getId();
-
-            vmList = new ArrayList<>();
-            for (int i = 0; i < NUM_VMS; i++) {
-                Vm vm = new Vm(i, brokerId, HOST_MIPS, VM_PES_NUMBER, VM_RAM, VM_BW, VM_SIZE, VM_VMM, new CloudletSchedulerTimeShared());
-                vmList.add(vm);
-            }
-
-            broker.submitVmList(vmList);
-
-            cloudletList = new ArrayList<>();
-            for (int i = 0; i < NUM_CLOUDLETS; i++) {
-                Cloudlet cloudlet = createCloudlet(i);
-                cloudlet.setUserId(brokerId);
-                cloudletList.add(cloudlet);
-            }
-
-            broker.submitCloudletList(cloudletList);
-
-            for (Datacenter dc : datacenterList) {
-                throttledVmAllocation(broker, dc);
-                bindCloudletsToVmsInDynamicRR(broker, dc);
+            // -Dvms=<n> and -Dcloudlets=<n> answer the prompts, so runs can be scripted, see ExperimentRunner
+            int NUM_VMS = SimulationConfig.count("vms", "Enter NO. of Vm's: ", scanner);
+            // A trace file (argument or -Dtrace) or -Dworkload=<spec> replaces the cloudlet prompt
+            String tracePath = args.length > 0 ? args[0] : System.getProperty("trace");
+            String workloadSpec = System.getProperty("workload");
+            // -Dresume=<file> continues from a checkpoint written with -Dcheckpoint=<file>
+            SimulationCheckpoint checkpoint = SimulationCheckpoint.fromSystemProperty();
+            int NUM_CLOUDLETS = 0;
+            if (tracePath == null && workloadSpec == null && checkpoint == null) {
+                NUM_CLOUDLETS = SimulationConfig.count("cloudlets", "Enter NO. of Cloudlets: ", scanner);
             }
 
-            CloudSim.startSimulation();
-
-            List<Cloudlet> newList = broker.getCloudletReceivedList();
-
-            CloudSim.stopSimulation();
-
-            calculateMetrics(newList);
-            calculateMetrics1(newList);
+            // Phase timers and broker counters, over JMX and with -Dinstrument.file, see Instrumentation
+            Instrumentation.export();
+            Instrumentation.Phases phases = new Instrumentation.Phases("phase");
+            phases.enter("setup");
+            // -Ddatacenters, -Dbinder, -Dcompact and -Dresults as described in Readme.txt, the rest in SimulationBuilder
+            SimulationBuilder.Simulation simulation = new SimulationBuilder()
+                    .vms(NUM_VMS)
+                    .datacenters(SimulationConfig.intValue("datacenters", NUM_DATACENTERS))
+                    .cloudlets(NUM_CLOUDLETS, SEED, ResourceAllocation::createCloudlet)
+                    .trace(tracePath)
+                    .workload(workloadSpec)
+                    .resume(checkpoint)
+                    .compact(Boolean.getBoolean("compact"))
+                    .results(System.getProperty("results"))
+                    .phases(phases)
+                    .build();
+
+            List<Cloudlet> newList = simulation.run();
+            simulation.printReports(newList);
+            phases.end();
+            Instrumentation.printReport();
             Log.printLine("Dynamic Resource Allocation Simulation finished");
         } catch (Exception e) {
             e.printStackTrace();
             Log.printLine("The simulation has been terminated due to an unexpected error");
+            System.exit(1);
         }
     }
 
-    private static Datacenter createDatacenter(String name) {
-        List<Host> hostList = new ArrayList<>();
-        List<Pe> peList = new ArrayList<>();
-        peList.add(new Pe(0, new PeProvisionerSimple(HOST_MIPS)));
-        hostList.add(new Host(0, new RamProvisionerSimple(HOST_RAM), new BwProvisionerSimple(HOST_BW),
-                HOST_STORAGE, peList, new VmSchedulerTimeShared(peList)));
-        String arch = "x86";
-        String os = "Linux";
-        String vmm = "Xen";
-        double timeZone = 10.0;
-        double cost = 3.0;
-        double costPerMem = 0.05;
-        double costPerStorage = 0.001;
-        double costPerBw = 0.0;
-        LinkedList<Storage> storageList = new LinkedList<>();
-        DatacenterCharacteristics characteristics = new DatacenterCharacteristics(
-                arch, os, vmm, hostList, timeZone, cost, costPerMem, costPerStorage, costPerBw);
-        Datacenter datacenter = null;
-        try {
-            datacenter = new Datacenter(name, characteristics, new VmAllocationPolicySimple(hostList), storageList, 0);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return datacenter;
-    }
-
-    private static DatacenterBroker createBroker() {
-        DatacenterBroker broker = null;
-        try {
-            broker = new DatacenterBroker("Broker");
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
-        }
-        return broker;
-    }
-
-    private static void throttledVmAllocation(DatacenterBroker broker, Datacenter datacenter) {
-        List<Vm> vmList = datacenter.getVmList();
-        vmList.sort(Comparator.comparingDouble(ResourceAllocation::estimateCpuUtilization));
-
-        for (Vm vm : vmList) {
-            double estimatedCpuUtilization = estimateCpuUtilization(vm);
-            if (estimatedCpuUtilization < CPU_THRESHOLD) {
-                List<Cloudlet> cloudletsToAllocate = findCloudletsToAllocate(vm);
-                for (Cloudlet cloudlet : cloudletsToAllocate) {
-                    broker.bindCloudletToVm(cloudlet.getCloudletId(), vm.getId());
-                    updateCpuUsageHistory(vm, 1); // Set CPU usage of VM to 100%
-                }
-            } else {
-                break;
-            }
-        }
-    }
-
-    private static void updateCpuUsageHistory(Vm vm, double cpuUsage) {
-        if (!cpuUsageHistory.containsKey(vm)) {
-            cpuUsageHistory.put(vm, new ArrayList<>());
-        }
-        List<Double> history = cpuUsageHistory.get(vm);
-        history.add(cpuUsage);
-        // Remove old entries to maintain the window size
-        if (history.size() > CPU_HISTORY_WINDOW) {
-            history.remove(0);
-        }
-    }
-
-    private static double estimateCpuUtilization(Vm vm) {
-        if (!cpuUsageHistory.containsKey(vm) || cpuUsageHistory.get(vm).isEmpty()) {
-            return 0.0; // Return 0 if no history available
-        }
-        List<Double> history = cpuUsageHistory.get(vm);
-        double sum = 0.0;
-        for (double usage : history) {
-            sum += usage;
-        }
-        return sum / history.size(); // Return average CPU usage
-    }
-
-    private static List<Cloudlet> findCloudletsToAllocate(Vm underutilizedVm) {
-        List<Cloudlet> cloudletsToAllocate = new ArrayList<>();
-        for (Cloudlet cloudlet : cloudletList) {
-            if (cloudlet.getVmId() == -1) { // Cloudlet not yet assigned to any VM
-                cloudletsToAllocate.add(cloudlet);
-            }
-        }
-        return cloudletsToAllocate;
-    }
-
-    private static Cloudlet createCloudlet(int id) {
+    private static Cloudlet createCloudlet(int id, Random rand) {
     	long cloudletLength = (id % 38) * 850 + 1000;
         long cloudletFileSize = (id * 450) % 600;
         long cloudletOutputSize = (id * 450) % 600;
-        double arrivalTime = new Random().nextInt(100); // Random arrival time
-        return new Cloudlet(id, cloudletLength, VM_PES_NUMBER, cloudletFileSize, cloudletOutputSize,
-                new UtilizationModelFull(), new UtilizationModelFull(), new UtilizationModelFull());
+        double arrivalTime = rand.nextInt(100); // Random arrival time
+        return new TraceCloudlet(id, arrivalTime, cloudletLength, SimulationBuilder.VM_PES_NUMBER, cloudletFileSize,
+                cloudletOutputSize, UTILIZATION_MODEL);
    
     }
-
-    private static void bindCloudletsToVmsInDynamicRR(DatacenterBroker broker, Datacenter datacenter) {
-        List<Cloudlet> cloudletList = broker.getCloudletSubmittedList();
-
-        int currentIndex = 0; // Current index to keep track of VM selection
-
-        // Track data transfer status
-        double totalDataTransferred = 0;
-        double maxDataTransferThreshold = 1000; // Adjust this threshold as needed
-
-        for (Cloudlet cloudlet : cloudletList) {
-            // Check data transfer status before scheduling the cloudlet
-            if (totalDataTransferred < maxDataTransferThreshold) {
-                Vm vm = datacenter.getVmList().get(currentIndex); // Get the VM based on currentIndex
-                broker.bindCloudletToVm(cloudlet.getCloudletId(), vm.getId());
-                currentIndex = (currentIndex + 1) % datacenter.getVmList().size(); // Move to the next VM in circular order
-
-                // Update totalDataTransferred
-                totalDataTransferred += cloudlet.getCloudletFileSize() / 1024.0; // Convert to MB
-            } else {
-                // If data transfer threshold exceeded, reset currentIndex to 0 and continue scheduling
-                currentIndex = 0;
-                Vm vm = datacenter.getVmList().get(currentIndex);
-                broker.bindCloudletToVm(cloudlet.getCloudletId(), vm.getId());
-                currentIndex++; // Move to the next VM
-                totalDataTransferred = cloudlet.getCloudletFileSize() / 1024.0; // Reset totalDataTransferred
-            }
-        }
-    }
-
-    private static void calculateMetrics(List<Cloudlet> list) {
-        int size = list.size();
-        Cloudlet cloudlet;
-
-        String indent = "    ";
-        Log.printLine();
-        Log.printLine("========== OUTPUT ==========");
-        Log.printLine("Cloudlet ID" + indent + "STATUS" + indent
-                + "Data center ID" + indent + "VM ID" + indent + "Time" + indent
-                + "Start Time" + indent + "Finish Time" );
-
-        DecimalFormat dft = new DecimalFormat("###.##");
-        for (int i = 0; i < size; i++) {
-            cloudlet = list.get(i);
-            Log.print(indent + cloudlet.getCloudletId() + indent + indent);
-
-            if (cloudlet.getCloudletStatus() == Cloudlet.SUCCESS) {
-                Log.print("SUCCESS");
-
-                Log.printLine(indent + indent + cloudlet.getResourceId()
-                        + indent + indent + indent + cloudlet.getVmId()
-                        + indent + indent
-                        + dft.format(cloudlet.getActualCPUTime()) + indent
-                        + indent + dft.format(cloudlet.getExecStartTime())
-                        + indent + indent
-                        + dft.format(cloudlet.getFinishTime()));
-            }
-        }
-    }
-
-    private static void calculateMetrics1(List<Cloudlet> cloudletList) {
-        double totalDataTransferred = 0;
-        double totalExecutionTime = 0;
-
-        for (Cloudlet cloudlet : cloudletList) {
-            totalDataTransferred += cloudlet.getCloudletFileSize() / 1024.0; // Convert to MB
-            totalExecutionTime += cloudlet.getActualCPUTime();
-        }
-
-        Log.printLine();
-        Log.printLine("========== METRICS ==========");
-        Log.printLine("Total amount of data forwarded: " + totalDataTransferred + " MB");
-        Log.printLine("Total execution time: " + totalExecutionTime + "ms");
-    }
 }
@@ -0,0 +1,159 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Cloudlet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+/*
+ * Writes one CSV row per finished cloudlet:
+ *   cloudletId,status,datacenterId,vmId,time,startTime,finishTime
+ *
+ * Numbers are formatted digit by digit straight into a reused buffer (times
+ * rounded to two decimals), and the buffer goes to the channel only when it
+ * fills up, so a row costs no String or formatter objects. Can be given to
+ * StreamingDatacenterBroker.setCompletionListener to write rows as cloudlets
+ * finish instead of after the simulation.
+ */
+public class ResultsWriter implements Consumer<Cloudlet>, Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_ROW = 256;
+    private static final byte[] HEADER = ascii("Cloudlet ID,STATUS,Data center ID,VM ID,Time,Start Time,Finish Time\n");
+    private static final byte[][] STATUS = {
+            ascii("CREATED"), ascii("READY"), ascii("QUEUED"), ascii("INEXEC"), ascii("SUCCESS"),
+            ascii("FAILED"), ascii("CANCELED"), ascii("PAUSED"), ascii("RESUMED"), ascii("FAILED_RESOURCE_UNAVAILABLE")};
+    private static final byte[] UNKNOWN = ascii("UNKNOWN");
+    private static final byte[] NAN = ascii("NaN");
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final byte[] digits = new byte[20];
+    private final boolean closeChannel;
+    private long rows;
+
+    public ResultsWriter(WritableByteChannel channel, boolean closeChannel) {
+        this.channel = channel;
+        this.closeChannel = closeChannel;
+        buffer.put(HEADER);
+    }
+
+    public static ResultsWriter toFile(String path) throws IOException {
+        return new ResultsWriter(FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), true);
+    }
+
+    // Does not close the stream, so System.out can be used
+    public static ResultsWriter toStream(OutputStream out) {
+        return new ResultsWriter(Channels.newChannel(out), false);
+    }
+
+    public static ResultsWriter toFileOrStream(String path, OutputStream out) throws IOException {
+        return path != null ? toFile(path) : toStream(out);
+    }
+
+    @Override
+    public void accept(Cloudlet cloudlet) {
+        try {
+            write(cloudlet);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write results", e);
+        }
+    }
+
+    public void writeAll(List<? extends Cloudlet> list) throws IOException {
+        for (Cloudlet cloudlet : list) {
+            write(cloudlet);
+        }
+    }
+
+    public void write(Cloudlet cloudlet) throws IOException {
+        if (buffer.remaining() < MAX_ROW) {
+            drain();
+        }
+        putLong(cloudlet.getCloudletId());
+        buffer.put((byte) ',');
+        int status = cloudlet.getCloudletStatus();
+        buffer.put(status >= 0 && status < STATUS.length ? STATUS[status] : UNKNOWN);
+        buffer.put((byte) ',');
+        putLong(cloudlet.getResourceId());
+        buffer.put((byte) ',');
+        putLong(cloudlet.getVmId());
+        buffer.put((byte) ',');
+        putTime(cloudlet.getActualCPUTime());
+        buffer.put((byte) ',');
+        putTime(cloudlet.getExecStartTime());
+        buffer.put((byte) ',');
+        putTime(cloudlet.getFinishTime());
+        buffer.put((byte) '\n');
+        rows++;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public void flush() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        drain();
+        if (closeChannel) {
+            channel.close();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void putLong(long value) {
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int pos = digits.length;
+        do {
+            digits[--pos] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        buffer.put(digits, pos, digits.length - pos);
+    }
+
+    // Two decimals, like the ###.## format used for the console table
+    private void putTime(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            buffer.put(NAN);
+            return;
+        }
+        long hundredths = Math.round(value * 100);
+        if (hundredths < 0) {
+            buffer.put((byte) '-');
+            hundredths = -hundredths;
+        }
+        putLong(hundredths / 100);
+        long fraction = hundredths % 100;
+        buffer.put((byte) '.');
+        buffer.put((byte) ('0' + fraction / 10));
+        buffer.put((byte) ('0' + fraction % 10));
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
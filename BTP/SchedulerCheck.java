@@ -0,0 +1,113 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.*;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+import java.util.*;
+
+/*
+ * Checks that a cloudlet scheduler finishes cloudlets when
+ * CloudletSchedulerTimeShared does. Both run the same single-VM simulation,
+ * same cloudlets, PEs and arrival times, and every cloudlet's finish time is
+ * compared. Half the cloudlets share a few fixed lengths so they form work
+ * units, the rest have lengths of their own.
+ *
+ * Finish times count as equal within the datacenter's event granularity
+ * (CloudSim's minimum time between events plus its 0.01 s margin) plus one MI
+ * per cloudlet on the VM's total MIPS: CloudletSchedulerTimeShared finishes a
+ * cloudlet once less than a whole MI is left and drops the rest, so on a busy
+ * VM it runs ahead by up to that much. --tolerance overrides the bound. Exits
+ * with status 1 on a mismatch or a cloudlet only one scheduler finished.
+ *
+ * Usage: SchedulerCheck [--scheduler batched] [--cloudlets 500] [--pes 2]
+ *                       [--seed 1] [--tolerance <seconds>]
+ */
+public class SchedulerCheck {
+    private static final long[] SHARED_LENGTHS = {4000, 8000, 12000, 20000};
+    private static final int MAX_ARRIVAL_GAP = 3;
+    private static final UtilizationModel UTILIZATION_MODEL = new UtilizationModelFull();
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        String scheduler = options.getOrDefault("scheduler", BatchedTimeSharedScheduler.NAME);
+        int numCloudlets = Integer.parseInt(options.getOrDefault("cloudlets", "500"));
+        int pes = Integer.parseInt(options.getOrDefault("pes", "2"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        double roundingDrift = numCloudlets / ((double) pes * SimulationBuilder.HOST_MIPS);
+        double tolerance = Double.parseDouble(options.getOrDefault("tolerance",
+                String.valueOf(CloudSim.getMinTimeBetweenEvents() + 0.01 + roundingDrift)));
+        try {
+            Log.disable();
+            double[] expected = finishTimes(CloudletSchedulerRegistry.DEFAULT_SCHEDULER, numCloudlets, pes, seed);
+            double[] actual = finishTimes(scheduler, numCloudlets, pes, seed);
+
+            int mismatches = 0;
+            double worst = 0;
+            for (int id = 0; id < numCloudlets; id++) {
+                double difference = Math.abs(actual[id] - expected[id]);
+                boolean unfinished = (actual[id] < 0) != (expected[id] < 0);
+                if (unfinished || difference > tolerance) {
+                    if (mismatches++ < 10) {
+                        System.out.println("cloudlet " + id + ": " + CloudletSchedulerRegistry.DEFAULT_SCHEDULER + " "
+                                + expected[id] + ", " + scheduler + " " + actual[id]);
+                    }
+                }
+                if (!unfinished) {
+                    worst = Math.max(worst, difference);
+                }
+            }
+            System.out.println(scheduler + " vs " + CloudletSchedulerRegistry.DEFAULT_SCHEDULER + ": " + numCloudlets
+                    + " cloudlets on " + pes + " PEs, largest difference " + worst + " s, " + mismatches
+                    + " beyond " + tolerance + " s");
+            if (mismatches > 0) {
+                System.exit(1);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    // Finish time per cloudlet id under the named scheduler, -1 where it did not finish
+    private static double[] finishTimes(String scheduler, int numCloudlets, int pes, long seed) throws Exception {
+        CloudSim.init(1, null, false);
+        DatacenterTopology.uniform("Datacenter", 1, 1, pes, SimulationBuilder.HOST_MIPS, SimulationBuilder.HOST_RAM,
+                SimulationBuilder.HOST_BW, SimulationBuilder.HOST_STORAGE).build();
+        StreamingDatacenterBroker broker = new StreamingDatacenterBroker("Broker");
+        Vm vm = new Vm(0, broker.getId(), SimulationBuilder.HOST_MIPS, pes, SimulationBuilder.VM_RAM,
+                SimulationBuilder.VM_BW, SimulationBuilder.VM_SIZE, SimulationBuilder.VM_VMM,
+                CloudletSchedulerRegistry.get(scheduler).get());
+        broker.submitVmList(Collections.singletonList(vm));
+
+        // Same seed, same cloudlets, in non-decreasing arrival order with many arriving together
+        Random rand = new Random(seed);
+        List<Cloudlet> cloudlets = new ArrayList<>(numCloudlets);
+        double arrival = 0;
+        for (int id = 0; id < numCloudlets; id++) {
+            arrival += rand.nextInt(MAX_ARRIVAL_GAP);
+            long length = rand.nextBoolean() ? SHARED_LENGTHS[rand.nextInt(SHARED_LENGTHS.length)]
+                    : 1000 + rand.nextInt(30000);
+            Cloudlet cloudlet = new TraceCloudlet(id, arrival, length, 1 + rand.nextInt(pes), 300, 300,
+                    UTILIZATION_MODEL);
+            cloudlet.setUserId(broker.getId());
+            cloudlet.setVmId(vm.getId());
+            cloudlets.add(cloudlet);
+        }
+        broker.submitArrivals(cloudlets.iterator());
+
+        double[] finish = new double[numCloudlets];
+        Arrays.fill(finish, -1);
+        broker.setRetainFinished(false);
+        broker.setCompletionListener(cloudlet -> {
+            if (cloudlet.getCloudletStatus() == Cloudlet.SUCCESS) {
+                finish[cloudlet.getCloudletId()] = cloudlet.getFinishTime();
+            }
+        });
+        CloudSim.startSimulation();
+        CloudSim.stopSimulation();
+        return finish;
+    }
+}
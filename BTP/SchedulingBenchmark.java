@@ -0,0 +1,171 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.*;
+
+import java.util.*;
+
+/*
+ * Micro-benchmarks for the binding policies and the CPU utilization estimate,
+ * plus end-to-end simulation wall time, across VM and cloudlet scales. For the
+ * binders ops is the cloudlet count, for the estimate it is the number of calls.
+ *
+ * Each measurement runs warm-up iterations first and then reports the mean and
+ * best of the measured iterations as CSV. Results of every call are folded into
+ * a volatile sink so the JIT cannot drop the work.
+ *
+ * The simulations run once per --schedulers entry (CloudletSchedulerRegistry
+ * names); rows for schedulers other than timeshared are labelled policy@scheduler.
+ * The genetic binder searches for --ga-budget milliseconds per batch rather
+ * than its 2 s default, so its rows measure a fixed amount of search. Every
+ * binding call gets its own copy of the cloudlet list, since SJF sorts it.
+ *
+ * This is the quick single-JVM harness; the JMH benchmarks in benchmarks/
+ * measure the same things with forks and proper warm-up, see Readme.txt.
+ *
+ * Usage: SchedulingBenchmark [--scales 100,1000,10000,100000,1000000]
+ *                            [--warmup 3] [--iterations 5] [--e2e-max 10000]
+ *                            [--schedulers timeshared,batched] [--ga-budget 50]
+ */
+public class SchedulingBenchmark {
+    private static final int VM_MIPS = 1000;
+    private static final int VM_PES_NUMBER = 1;
+    private static final int VM_RAM = 2048;
+    private static final long VM_SIZE = 10000;
+    private static final long VM_BW = 1000;
+    private static final String VM_VMM = "Xen";
+    static final int HISTORY_WINDOW = 10;
+    static final long GA_BUDGET_MILLIS = 50;
+    private static final int ESTIMATE_CALLS = 10000000;
+
+    private static volatile long sink;
+
+    private interface Body {
+        long run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        int[] scales = Arrays.stream(options.getOrDefault("scales", "100,1000,10000,100000,1000000").split(","))
+                .mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "3"));
+        int iterations = Integer.parseInt(options.getOrDefault("iterations", "5"));
+        int e2eMax = Integer.parseInt(options.getOrDefault("e2e-max", "10000"));
+        String[] schedulers = options.getOrDefault("schedulers", CloudletSchedulerRegistry.DEFAULT_SCHEDULER).split(",");
+        // The registry reads the budget whenever it creates the genetic binder, SweepWorker's included
+        System.setProperty("ga.budget", options.getOrDefault("ga-budget", String.valueOf(GA_BUDGET_MILLIS)));
+
+        Log.disable();
+        System.out.println("benchmark,vms,ops,meanMs,bestMs,nsPerOp");
+
+        for (int numVms : scales) {
+            List<Vm> vmList = createVms(numVms);
+            UtilizationHistory history = new UtilizationHistory(HISTORY_WINDOW);
+            Random rand = new Random(42);
+            for (Vm vm : vmList) {
+                for (int s = 0; s < HISTORY_WINDOW; s++) {
+                    history.add(vm.getId(), rand.nextDouble() * 0.5);
+                }
+            }
+            measure("estimateCpuUtilization", numVms, ESTIMATE_CALLS, warmup, iterations, () -> {
+                long acc = 0;
+                for (int i = 0; i < ESTIMATE_CALLS; i++) {
+                    acc += (long) (history.mean(i % numVms) * 1000);
+                }
+                return acc;
+            });
+
+            for (int numCloudlets : scales) {
+                List<Cloudlet> cloudletList = createCloudlets(numCloudlets);
+                for (String name : BindingPolicyRegistry.names()) {
+                    measure(name, numVms, numCloudlets, warmup, iterations, () -> {
+                        // A copy in creation order each time, since some policies reorder the list they bind
+                        List<Cloudlet> batch = unbound(cloudletList);
+                        // A fresh history each time so throttled starts from idle VMs
+                        BindingPolicyRegistry.create(name).bind(vmList, batch, new UtilizationHistory(HISTORY_WINDOW));
+                        long acc = 0;
+                        for (Cloudlet cloudlet : batch) {
+                            acc += cloudlet.getVmId();
+                        }
+                        return acc;
+                    });
+                }
+            }
+        }
+
+        // Whole simulations are far slower than binding, so they stop at --e2e-max
+        for (int numVms : scales) {
+            for (int numCloudlets : scales) {
+                if (numVms > e2eMax || numCloudlets > e2eMax) {
+                    continue;
+                }
+                for (String scheduler : schedulers) {
+                    // SweepWorker reads the scheduler from the system property, as in a forked worker
+                    CloudletSchedulerRegistry.get(scheduler);
+                    System.setProperty("scheduler", scheduler);
+                    String label = scheduler.equals(CloudletSchedulerRegistry.DEFAULT_SCHEDULER) ? "" : "@" + scheduler;
+                    for (String name : BindingPolicyRegistry.names()) {
+                        measure("startSimulation:" + name + label, numVms, numCloudlets, Math.min(warmup, 1), iterations,
+                                () -> {
+                                    String result = SweepWorker.run(numVms, numCloudlets, name, 1, 4);
+                                    return result.hashCode();
+                                });
+                    }
+                }
+            }
+        }
+    }
+
+    private static void measure(String benchmark, int numVms, long ops, int warmup, int iterations, Body body) {
+        try {
+            for (int i = 0; i < warmup; i++) {
+                sink += body.run();
+            }
+            long total = 0;
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                sink += body.run();
+                long elapsed = System.nanoTime() - start;
+                total += elapsed;
+                best = Math.min(best, elapsed);
+            }
+            double mean = total / (double) iterations;
+            System.out.println(benchmark + "," + numVms + "," + ops + "," + mean / 1e6 + "," + best / 1e6 + ","
+                    + mean / ops);
+        } catch (Exception e) {
+            System.out.println(benchmark + "," + numVms + "," + ops + ",failed,failed," + e);
+        }
+    }
+
+    static List<Vm> createVms(int count) {
+        List<Vm> vmList = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            vmList.add(new Vm(i, 0, VM_MIPS, VM_PES_NUMBER, VM_RAM, VM_BW, VM_SIZE, VM_VMM,
+                    new CloudletSchedulerTimeShared()));
+        }
+        return vmList;
+    }
+
+    static List<Cloudlet> createCloudlets(int count) {
+        UtilizationModel utilizationModel = new UtilizationModelFull();
+        List<Cloudlet> cloudletList = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long size = (i * 450L) % 600;
+            cloudletList.add(new Cloudlet(i, (i % 38) * 850 + 1000, VM_PES_NUMBER, size, size,
+                    utilizationModel, utilizationModel, utilizationModel));
+        }
+        return cloudletList;
+    }
+
+    // A copy of the list with every cloudlet unbound again
+    static List<Cloudlet> unbound(List<Cloudlet> cloudletList) {
+        List<Cloudlet> batch = new ArrayList<>(cloudletList);
+        for (Cloudlet cloudlet : batch) {
+            cloudlet.setVmId(-1);
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,380 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.*;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/*
+ * Wires one simulation the way every driver runs it, so ResourceAllocation,
+ * Multidatacenter, DynamicResourceAllocation and SweepWorker only say what
+ * differs: VM and cloudlet counts, how a prompted cloudlet is made, whether
+ * VMs are spread over the datacenters, and where the cloudlets come from.
+ *
+ * build() calls CloudSim.init and creates the datacenters, the broker with its
+ * -Dsteal, -Dadmission and -Drecord options, the VMs with the -Dscheduler
+ * scheduler, the cloudlets, the binding policy, the UtilizationMonitor and
+ * InstrumentationProbe, the metrics and cost listeners and the -Dcheckpoint
+ * writer. -Dtopology replaces the uniform datacenters and -Dthreshold the
+ * monitor's CPU_THRESHOLD.
+ */
+public class SimulationBuilder {
+    public static final int HOST_MIPS = 1000;
+    public static final int HOST_RAM = 2048;
+    public static final long HOST_STORAGE = 1000000;
+    public static final int HOST_BW = 10000;
+    public static final int VM_PES_NUMBER = 1;
+    public static final int VM_RAM = 2048;
+    public static final long VM_SIZE = 10000;
+    public static final long VM_BW = 1000;
+    public static final String VM_VMM = "Xen";
+
+    private static final double CPU_THRESHOLD = 0.8; // CPU utilization threshold for load balancing
+    private static final double CPU_HISTORY_WINDOW = 10; // Window size to track CPU usage history (in seconds)
+    private static final double MONITOR_INTERVAL = 1.0; // Seconds between utilization samples
+    private static final double DC_COST_WEIGHT = 1.0;
+    private static final int TRACE_LOOKAHEAD = 10000; // Jobs parsed ahead of the one being consumed
+    private static final double THROUGHPUT_WINDOW = 1.0; // Initial width of the throughput windows in seconds
+
+    // Makes prompted cloudlet `id`; rand is seeded once per run, so arrivals can be compared across runs
+    public interface CloudletFactory {
+        Cloudlet create(int id, Random rand);
+    }
+
+    private int vms;
+    private int datacenters = 1;
+    private boolean spreadVms = true;
+    private int cloudlets;
+    private long seed;
+    private CloudletFactory factory;
+    private String tracePath;
+    private String workloadSpec;
+    private SimulationCheckpoint checkpoint;
+    private boolean compact;
+    private String resultsPath;
+    private CloudletBindingPolicy policy;
+    private Consumer<Cloudlet> completionListener;
+    private boolean retainFinished = true;
+    private Instrumentation.Phases phases;
+
+    public SimulationBuilder vms(int count) {
+        this.vms = count;
+        return this;
+    }
+
+    // Uniform single-host datacenters when no -Dtopology is given
+    public SimulationBuilder datacenters(int count) {
+        this.datacenters = count;
+        return this;
+    }
+
+    // false leaves every VM in the first datacenter, as DatacenterBroker does
+    public SimulationBuilder spreadVms(boolean spread) {
+        this.spreadVms = spread;
+        return this;
+    }
+
+    public SimulationBuilder cloudlets(int count, long seed, CloudletFactory factory) {
+        this.cloudlets = count;
+        this.seed = seed;
+        this.factory = factory;
+        return this;
+    }
+
+    // Jobs pulled from an SWF/CSV trace as their arrival time comes up; takes precedence over a workload
+    public SimulationBuilder trace(String path) {
+        this.tracePath = path;
+        return this;
+    }
+
+    // Seeded synthetic jobs, see WorkloadGenerator
+    public SimulationBuilder workload(String spec) {
+        this.workloadSpec = spec;
+        return this;
+    }
+
+    // Continues the run a CheckpointWriter snapshotted
+    public SimulationBuilder resume(SimulationCheckpoint checkpoint) {
+        this.checkpoint = checkpoint;
+        return this;
+    }
+
+    // Keeps the prompted cloudlets in primitive arrays until they arrive, see CloudletStore
+    public SimulationBuilder compact(boolean compact) {
+        this.compact = compact;
+        return this;
+    }
+
+    // Streams one CSV row per cloudlet to the file as it finishes
+    public SimulationBuilder results(String path) {
+        this.resultsPath = path;
+        return this;
+    }
+
+    // -Dbinder when not set
+    public SimulationBuilder policy(CloudletBindingPolicy policy) {
+        this.policy = policy;
+        return this;
+    }
+
+    // Runs after the metrics, costs and results listeners
+    public SimulationBuilder completionListener(Consumer<Cloudlet> listener) {
+        this.completionListener = listener;
+        return this;
+    }
+
+    // Finished cloudlets are never kept when they go to a results file or a store
+    public SimulationBuilder retainFinished(boolean retain) {
+        this.retainFinished = retain;
+        return this;
+    }
+
+    // Times the bind phase separately; the caller is expected to be in its setup phase
+    public SimulationBuilder phases(Instrumentation.Phases phases) {
+        this.phases = phases;
+        return this;
+    }
+
+    public Simulation build() throws Exception {
+        CloudSim.init(1, null, false);
+        Simulation sim = new Simulation();
+        sim.phases = phases;
+        sim.datacenterList = createDatacenters(datacenters);
+
+        StreamingDatacenterBroker broker = new StreamingDatacenterBroker("Broker");
+        // -Dsteal=<n> keeps at most n cloudlets per VM in the datacenter and lets idle VMs take the rest
+        broker.setWorkStealing(WorkStealingDispatcher.fromSystemProperty());
+        // -Dadmission=<stretch>,... admits, defers or rejects cloudlets on deadlines per priority class
+        broker.setAdmissionControl(AdmissionController.fromSystemProperty());
+        // -Drecord=<file> writes every cloudlet and VM event to a binary file, see EventReplay
+        sim.recorder = EventRecorder.fromSystemProperty();
+        broker.setEventRecorder(sim.recorder);
+        sim.broker = broker;
+        int brokerId = broker.getId();
+
+        // -Dscheduler=<name> picks how each VM runs its cloudlets, see CloudletSchedulerRegistry
+        Supplier<CloudletScheduler> schedulers = CloudletSchedulerRegistry.fromSystemProperty();
+        List<Vm> vmList = new ArrayList<>();
+        for (int i = 0; i < vms; i++) {
+            vmList.add(new Vm(i, brokerId, HOST_MIPS, VM_PES_NUMBER, VM_RAM, VM_BW, VM_SIZE, VM_VMM, schedulers.get()));
+        }
+        broker.submitVmList(vmList);
+        sim.vmList = vmList;
+        Map<Integer, List<Vm>> vmsByDatacenter = null;
+        VmPlacementPlanner planner = null;
+        if (spreadVms) {
+            // Spread the VMs over the datacenters by capacity
+            planner = new VmPlacementPlanner(sim.datacenterList);
+            vmsByDatacenter = planner.place(vmList);
+            broker.setVmPlacement(planner.getPlacement());
+        }
+
+        if (tracePath != null) {
+            sim.trace = TraceReader.open(tracePath, TRACE_LOOKAHEAD, HOST_MIPS, VM_PES_NUMBER);
+            if (checkpoint != null) {
+                checkpoint.resume(sim.trace);
+            }
+            broker.submitArrivals(sim.trace);
+        } else if (workloadSpec != null) {
+            sim.workload = WorkloadGenerator.parse(workloadSpec);
+            if (checkpoint != null) {
+                checkpoint.resume(sim.workload);
+            }
+            broker.submitArrivals(sim.workload);
+        }
+        List<Cloudlet> cloudletList = new ArrayList<>();
+        CloudletStore store = compact && cloudlets > 0 ? new CloudletStore(cloudlets) : null;
+        Random rand = new Random(seed);
+        for (int i = 0; i < cloudlets; i++) {
+            Cloudlet cloudlet = factory.create(i, rand);
+            cloudlet.setUserId(brokerId);
+            if (store != null) {
+                store.add(cloudlet);
+            } else {
+                cloudletList.add(cloudlet);
+            }
+        }
+        broker.submitCloudletList(cloudletList);
+        sim.store = store;
+
+        CloudletBindingPolicy policy = this.policy != null ? this.policy : BindingPolicyRegistry.fromSystemProperty();
+        UtilizationHistory history = new UtilizationHistory((int) (CPU_HISTORY_WINDOW / MONITOR_INTERVAL));
+        // Route each cloudlet to a datacenter, then bind it among that datacenter's VMs,
+        // unless the policy weighs the datacenters against each other itself (cost)
+        DatacenterSelector selector = null;
+        Consumer<List<Cloudlet>> binder;
+        if (spreadVms && !policy.useDatacenters(sim.datacenterList, planner.getPlacement())) {
+            // -Ddc.costweight=<x> weighs the normalised cost against the normalised finish delay
+            selector = new DatacenterSelector(sim.datacenterList, vmsByDatacenter,
+                    SimulationConfig.doubleValue("dc.costweight", DC_COST_WEIGHT));
+            DatacenterSelector router = selector;
+            Map<Integer, List<Vm>> byDatacenter = vmsByDatacenter;
+            binder = batch -> {
+                Map<Integer, List<Cloudlet>> routed = router.route(batch);
+                for (Datacenter dc : sim.datacenterList) {
+                    policy.bind(byDatacenter.get(dc.getId()), routed.get(dc.getId()), history);
+                }
+            };
+        } else {
+            if (!spreadVms) {
+                policy.useDatacenters(sim.datacenterList, null);
+            }
+            binder = batch -> policy.bind(vmList, batch, history);
+        }
+        sim.policy = policy;
+        sim.enter("bind");
+        binder = Instrumentation.timedBatches("policy." + policy.getName() + ".bind", binder);
+        if (store == null) {
+            binder.accept(cloudletList);
+        } else {
+            // Bound in batches and released as they arrive
+            store.bind(binder);
+            broker.submitArrivals(store.arrivals());
+        }
+        sim.enter("setup");
+        if (checkpoint != null) {
+            // Restored cloudlets keep the VMs they were bound to
+            broker.submitCloudletList(checkpoint.createCloudlets(brokerId));
+        }
+        broker.setBindingPolicy(policy, history);
+        if (selector != null) {
+            broker.setDatacenterSelector(selector);
+        }
+        // Samples VM utilization while the simulation runs and moves cloudlets off VMs above the threshold
+        sim.monitor = new UtilizationMonitor("Monitor", broker, history, MONITOR_INTERVAL,
+                SimulationConfig.doubleValue("threshold", CPU_THRESHOLD));
+        new InstrumentationProbe("Probe", broker, MONITOR_INTERVAL);
+
+        sim.results = resultsPath != null ? ResultsWriter.toFile(resultsPath) : null;
+        sim.metrics = new MetricsAggregator(vmList, THROUGHPUT_WINDOW);
+        // Datacenter capacity follows where the VMs are actually created
+        broker.setVmCreatedListener(sim.metrics::vmCreated);
+        // Prices the run at the datacenters' DatacenterCharacteristics, see CostReport
+        sim.costs = new CostReport(sim.datacenterList, vmList);
+        if (checkpoint != null) {
+            checkpoint.restore(sim.metrics, sim.costs, vmList.size());
+        }
+        Consumer<Cloudlet> listener = sim.metrics.andThen(sim.costs);
+        if (sim.results != null) {
+            listener = listener.andThen(sim.results);
+        }
+        if (store != null) {
+            listener = listener.andThen(store);
+        }
+        if (completionListener != null) {
+            listener = listener.andThen(completionListener);
+        }
+        broker.setCompletionListener(listener);
+        // Rows already go to the results file or the store, so finished cloudlets need not be kept
+        broker.setRetainFinished(retainFinished && sim.results == null && store == null);
+        // -Dcheckpoint=<file> snapshots the run every -Dcheckpoint.interval simulated seconds
+        CheckpointWriter.fromSystemProperty(broker, sim.metrics, sim.costs, sim.trace, sim.workload, store, checkpoint);
+        return sim;
+    }
+
+    // -Dtopology=<file> reads the datacenters from a spec file, see DatacenterTopology
+    private static List<Datacenter> createDatacenters(int count) throws Exception {
+        DatacenterTopology topology = DatacenterTopology.fromSystemProperty(DatacenterTopology.uniform(
+                "Datacenter", count, 1, 1, HOST_MIPS, HOST_RAM, HOST_BW, HOST_STORAGE));
+        return topology.build();
+    }
+
+    // A wired simulation, ready to run once
+    public static final class Simulation {
+        private Instrumentation.Phases phases;
+        private List<Datacenter> datacenterList;
+        private StreamingDatacenterBroker broker;
+        private List<Vm> vmList;
+        private CloudletBindingPolicy policy;
+        private TraceReader trace;
+        private WorkloadGenerator workload;
+        private CloudletStore store;
+        private EventRecorder recorder;
+        private UtilizationMonitor monitor;
+        private ResultsWriter results;
+        private MetricsAggregator metrics;
+        private CostReport costs;
+
+        private Simulation() {
+        }
+
+        // Runs to the end, closes the sources and writers, and returns the cloudlets the broker kept
+        public List<Cloudlet> run() throws IOException {
+            enter("simulate");
+            CloudSim.startSimulation();
+            enter("report");
+            List<Cloudlet> received = broker.getCloudletReceivedList();
+            CloudSim.stopSimulation();
+            if (trace != null) {
+                trace.close();
+                if (trace.getSkippedLines() > 0) {
+                    Log.printLine("Trace: " + trace.getSkippedLines() + " malformed lines skipped");
+                }
+            }
+            if (workload != null) {
+                workload.close();
+            }
+            if (recorder != null) {
+                recorder.close();
+            }
+            if (results != null) {
+                results.close();
+            }
+            return received;
+        }
+
+        // Per-cloudlet output unless it went to a results file or a store, then metrics, costs and admission
+        public void printReports(List<Cloudlet> received) throws IOException {
+            // The rows go straight to Log's stream, so Log.disable() has to be honoured here
+            if (results == null && store == null && !Log.isDisabled()) {
+                Log.printLine();
+                Log.printLine("========== OUTPUT ==========");
+                ResultsWriter writer = ResultsWriter.toStream(Log.getOutput());
+                writer.writeAll(received);
+                writer.close();
+            }
+            metrics.printReport();
+            costs.printReport();
+            if (broker.getAdmissionControl() != null) {
+                broker.getAdmissionControl().printReport();
+            }
+        }
+
+        public StreamingDatacenterBroker getBroker() {
+            return broker;
+        }
+
+        public List<Datacenter> getDatacenterList() {
+            return datacenterList;
+        }
+
+        public List<Vm> getVmList() {
+            return vmList;
+        }
+
+        public CloudletBindingPolicy getPolicy() {
+            return policy;
+        }
+
+        public UtilizationMonitor getMonitor() {
+            return monitor;
+        }
+
+        public MetricsAggregator getMetrics() {
+            return metrics;
+        }
+
+        public CostReport getCosts() {
+            return costs;
+        }
+
+        private void enter(String phase) {
+            if (phases != null) {
+                phases.enter(phase);
+            }
+        }
+    }
+}
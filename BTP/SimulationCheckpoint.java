@@ -0,0 +1,225 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.UtilizationModel;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/*
+ * Snapshot of a running simulation, written by CheckpointWriter and read back
+ * with -Dresume=<file>.
+ *
+ * CloudSim keeps its event queue and entities in static state that cannot be
+ * saved, so a checkpoint holds what is needed to rebuild an equivalent run:
+ * the clock, every unfinished cloudlet with its VM binding and the work it has
+ * left (pending, queued and running ones alike), the position in the trace or
+ * synthetic workload, and the metric accumulators. A resumed run starts at
+ * clock zero with every arrival shifted back by the checkpoint clock, and
+ * MetricsAggregator and CostReport add the clock back, so reports cover the
+ * whole run.
+ *
+ * Binary layout (DataOutput, big endian):
+ *   int magic, int version, double clock, int vmCount,
+ *   byte source, long sourcePosition, int sourceNextId, long sourceLines,
+ *   int cloudlets, then per cloudlet:
+ *     int id, double arrival, long length, int pes, long fileSize, long outputSize, int vmId
+ *   int metricsBytes, metrics as written by MetricsAggregator.writeTo
+ *   int costBytes, cost totals as written by CostReport.writeTo
+ */
+public class SimulationCheckpoint {
+    public static final byte SOURCE_NONE = 0;
+    public static final byte SOURCE_TRACE = 1;
+    public static final byte SOURCE_WORKLOAD = 2;
+
+    private static final int MAGIC = 0x43534e50; // "CSNP"
+    // 2: LatencyHistogram has twice the slots per octave; 3: metrics no longer hold datacenter capacities;
+    // 4: cost totals follow the metrics
+    private static final int VERSION = 4;
+    // Stateless, so one instance is shared by every restored cloudlet
+    private static final UtilizationModel UTILIZATION_MODEL = new UtilizationModelFull();
+
+    private double clock;
+    private int vmCount;
+    private byte source = SOURCE_NONE;
+    private long sourcePosition;
+    private int sourceNextId;
+    private long sourceLines;
+    private int size;
+    private int[] ids = new int[16];
+    private double[] arrival = new double[16];
+    private long[] length = new long[16];
+    private int[] pes = new int[16];
+    private long[] fileSize = new long[16];
+    private long[] outputSize = new long[16];
+    private int[] vmId = new int[16];
+    private byte[] metrics = new byte[0];
+    private byte[] costs = new byte[0];
+
+    public SimulationCheckpoint(double clock, int vmCount) {
+        this.clock = clock;
+        this.vmCount = vmCount;
+    }
+
+    // Checkpoint named by the resume system property, or null
+    public static SimulationCheckpoint fromSystemProperty() throws IOException {
+        String path = System.getProperty("resume");
+        return path != null ? read(path) : null;
+    }
+
+    public static SimulationCheckpoint read(String path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(Paths.get(path))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(path + " is not a simulation checkpoint");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException(path + " has checkpoint version " + version + ", expected " + VERSION);
+            }
+            SimulationCheckpoint checkpoint = new SimulationCheckpoint(in.readDouble(), in.readInt());
+            checkpoint.source = in.readByte();
+            checkpoint.sourcePosition = in.readLong();
+            checkpoint.sourceNextId = in.readInt();
+            checkpoint.sourceLines = in.readLong();
+            for (int count = in.readInt(); count > 0; count--) {
+                checkpoint.add(in.readInt(), in.readDouble(), in.readLong(), in.readInt(), in.readLong(),
+                        in.readLong(), in.readInt());
+            }
+            checkpoint.metrics = new byte[in.readInt()];
+            in.readFully(checkpoint.metrics);
+            checkpoint.costs = new byte[in.readInt()];
+            in.readFully(checkpoint.costs);
+            return checkpoint;
+        }
+    }
+
+    // Written to a temporary file first and moved into place, so a crash never leaves a torn checkpoint
+    public void write(String path) throws IOException {
+        Path target = Paths.get(path).toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeDouble(clock);
+            out.writeInt(vmCount);
+            out.writeByte(source);
+            out.writeLong(sourcePosition);
+            out.writeInt(sourceNextId);
+            out.writeLong(sourceLines);
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeInt(ids[i]);
+                out.writeDouble(arrival[i]);
+                out.writeLong(length[i]);
+                out.writeInt(pes[i]);
+                out.writeLong(fileSize[i]);
+                out.writeLong(outputSize[i]);
+                out.writeInt(vmId[i]);
+            }
+            out.writeInt(metrics.length);
+            out.write(metrics);
+            out.writeInt(costs.length);
+            out.write(costs);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Arrival is absolute simulated time, length the work left per PE
+    public void add(int id, double arrivalTime, long remainingLength, int numberOfPes, long cloudletFileSize,
+                    long cloudletOutputSize, int vm) {
+        if (size == ids.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            arrival = Arrays.copyOf(arrival, capacity);
+            length = Arrays.copyOf(length, capacity);
+            pes = Arrays.copyOf(pes, capacity);
+            fileSize = Arrays.copyOf(fileSize, capacity);
+            outputSize = Arrays.copyOf(outputSize, capacity);
+            vmId = Arrays.copyOf(vmId, capacity);
+        }
+        ids[size] = id;
+        arrival[size] = arrivalTime;
+        length[size] = remainingLength;
+        pes[size] = numberOfPes;
+        fileSize[size] = cloudletFileSize;
+        outputSize[size] = cloudletOutputSize;
+        vmId[size] = vm;
+        size++;
+    }
+
+    public void setSource(byte source, long position, int nextId, long lines) {
+        this.source = source;
+        this.sourcePosition = position;
+        this.sourceNextId = nextId;
+        this.sourceLines = lines;
+    }
+
+    public void setMetrics(MetricsAggregator aggregator, CostReport costReport) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            aggregator.writeTo(out);
+        }
+        metrics = bytes.toByteArray();
+        bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            costReport.writeTo(out);
+        }
+        costs = bytes.toByteArray();
+    }
+
+    public double getClock() {
+        return clock;
+    }
+
+    public int getCloudletCount() {
+        return size;
+    }
+
+    // Unfinished cloudlets of the checkpointed run, keeping their ids and VM bindings
+    public List<Cloudlet> createCloudlets(int userId) {
+        List<Cloudlet> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            TraceCloudlet cloudlet = new TraceCloudlet(ids[i], arrival[i] - clock, length[i], pes[i], fileSize[i],
+                    outputSize[i], UTILIZATION_MODEL);
+            cloudlet.setUserId(userId);
+            cloudlet.setVmId(vmId[i]);
+            list.add(cloudlet);
+        }
+        return list;
+    }
+
+    public void resume(TraceReader trace) throws IOException {
+        if (source != SOURCE_TRACE) {
+            throw new IllegalStateException("Checkpoint was not taken from a trace run");
+        }
+        trace.resumeAt(sourcePosition, sourceNextId, sourceLines);
+        trace.setTimeShift(clock);
+    }
+
+    public void resume(WorkloadGenerator workload) {
+        if (source != SOURCE_WORKLOAD) {
+            throw new IllegalStateException("Checkpoint was not taken from a synthetic workload run");
+        }
+        workload.skip(sourcePosition);
+        workload.setTimeShift(clock);
+    }
+
+    public void restore(MetricsAggregator aggregator, CostReport costReport, int vms) throws IOException {
+        if (vms != vmCount) {
+            throw new IllegalStateException("Checkpoint was taken with " + vmCount + " VMs, this run has " + vms);
+        }
+        aggregator.readFrom(new DataInputStream(new ByteArrayInputStream(metrics)));
+        aggregator.setTimeOffset(clock);
+        costReport.readFrom(new DataInputStream(new ByteArrayInputStream(costs)));
+        costReport.setTimeOffset(clock);
+    }
+}
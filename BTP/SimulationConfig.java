@@ -0,0 +1,188 @@
+package org.cloudbus.cloudsim.examples;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+
+/*
+ * Settings of one simulation run, as the key=value pairs the drivers read
+ * from system properties. ExperimentRunner builds these from a properties
+ * file, --key value flags and queue lines, and passes them to each driver
+ * JVM as -Dkey=value.
+ *
+ *   vms, cloudlets      counts otherwise asked for on System.in
+ *   datacenters         number of single-host datacenters without a topology
+ *   threshold           CPU utilization above which UtilizationMonitor moves cloudlets
+ *   trace               SWF/CSV trace, same as the drivers' first argument
+ *   workload, binder, topology, results, steal, compact,
+ *   checkpoint, checkpoint.interval, resume, cost.makespan, record,
+ *   instrument, instrument.file, instrument.interval, scheduler, ga.budget,
+ *   admission, dc.costweight
+ *                       as described in Readme.txt
+ *
+ * Four keys are for ExperimentRunner only: name labels the run, driver picks
+ * resource | multi | dynamic (resource), log sends its console output to a
+ * file, and jvm holds extra JVM arguments.
+ */
+public class SimulationConfig {
+    public static final Set<String> DRIVER_KEYS = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+            "vms", "cloudlets", "datacenters", "threshold", "trace", "workload", "binder", "topology", "results",
+            "steal", "compact", "checkpoint", "checkpoint.interval", "resume", "cost.makespan", "record",
+            "instrument", "instrument.file", "instrument.interval", "scheduler", "ga.budget", "admission",
+            "dc.costweight")));
+    public static final Set<String> RUNNER_KEYS = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+            "name", "driver", "log", "jvm")));
+
+    private final Map<String, String> values = new LinkedHashMap<>();
+
+    public SimulationConfig() {
+    }
+
+    public SimulationConfig(SimulationConfig base) {
+        values.putAll(base.values);
+    }
+
+    // A java.util.Properties file
+    public static SimulationConfig load(String path) throws IOException {
+        SimulationConfig config = new SimulationConfig();
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        for (String key : properties.stringPropertyNames()) {
+            config.set(key, properties.getProperty(key));
+        }
+        return config;
+    }
+
+    /*
+     * One run per line of whitespace separated key=value pairs on top of
+     * `base`; values with spaces go in double quotes. Blank lines and lines
+     * starting with # are skipped. Runs without a name are called run<line>.
+     */
+    public static List<SimulationConfig> loadQueue(String path, SimulationConfig base) throws IOException {
+        List<SimulationConfig> queue = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                SimulationConfig config = new SimulationConfig(base);
+                try {
+                    for (String pair : tokenize(line)) {
+                        int eq = pair.indexOf('=');
+                        if (eq <= 0) {
+                            throw new IllegalArgumentException("expected key=value, got '" + pair + "'");
+                        }
+                        config.set(pair.substring(0, eq), pair.substring(eq + 1));
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(path + ":" + lineNumber + ": " + e.getMessage(), e);
+                }
+                if (config.get("name") == null) {
+                    config.set("name", "run" + lineNumber);
+                }
+                queue.add(config);
+            }
+        }
+        return queue;
+    }
+
+    public void set(String key, String value) {
+        key = key.trim();
+        if (!DRIVER_KEYS.contains(key) && !RUNNER_KEYS.contains(key)) {
+            throw new IllegalArgumentException("unknown setting " + key + ", expected one of " + DRIVER_KEYS
+                    + " or " + RUNNER_KEYS);
+        }
+        values.put(key, value.trim());
+    }
+
+    public void putAll(SimulationConfig other) {
+        values.putAll(other.values);
+    }
+
+    public String get(String key) {
+        return values.get(key);
+    }
+
+    public String get(String key, String fallback) {
+        return values.getOrDefault(key, fallback);
+    }
+
+    // -Dkey=value for every driver setting
+    public List<String> toJvmProperties() {
+        List<String> properties = new ArrayList<>();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            if (DRIVER_KEYS.contains(entry.getKey())) {
+                properties.add("-D" + entry.getKey() + "=" + entry.getValue());
+            }
+        }
+        return properties;
+    }
+
+    // Driver side: the system property if set, else the answer to the prompt
+    public static int count(String key, String prompt, Scanner scanner) {
+        String value = System.getProperty(key);
+        if (value != null) {
+            return Integer.parseInt(value.trim());
+        }
+        System.out.print(prompt);
+        return scanner.nextInt();
+    }
+
+    public static int intValue(String key, int fallback) {
+        String value = System.getProperty(key);
+        return value != null ? Integer.parseInt(value.trim()) : fallback;
+    }
+
+    public static double doubleValue(String key, double fallback) {
+        String value = System.getProperty(key);
+        return value != null ? Double.parseDouble(value.trim()) : fallback;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            text.append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        return text.toString();
+    }
+
+    private static List<String> tokenize(String line) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (token.length() > 0) {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                }
+            } else {
+                token.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quote");
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,45 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Shortest job first onto the VM with the earliest projected finish time
+public class SjfBindingPolicy implements CloudletBindingPolicy {
+    public static final String NAME = "sjf";
+
+    // One binder per VM list, so per-datacenter lists keep separate backlogs
+    private final Map<List<? extends Vm>, MinCompletionTimeBinder> binders = new IdentityHashMap<>();
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void bind(List<? extends Vm> vmList, List<? extends Cloudlet> cloudletList, UtilizationHistory history) {
+        // Later batches for the same list continue from the backlog of the earlier ones
+        MinCompletionTimeBinder binder = binderFor(vmList);
+        binder.bindAll(cloudletList, true);
+    }
+
+    // Arrivals keep using the backlog built up by the batch pass
+    @Override
+    public int selectVm(Cloudlet cloudlet, List<? extends Vm> vmList, UtilizationHistory history) {
+        Vm vm = binderFor(vmList).bind(cloudlet, CloudSim.clock());
+        return vm == null ? -1 : vm.getId();
+    }
+
+    private MinCompletionTimeBinder binderFor(List<? extends Vm> vmList) {
+        MinCompletionTimeBinder binder = binders.get(vmList);
+        if (binder == null || binder.getVmCount() != vmList.size()) {
+            binder = new MinCompletionTimeBinder(vmList);
+            binders.put(vmList, binder);
+        }
+        return binder;
+    }
+}
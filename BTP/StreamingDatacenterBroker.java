@@ -0,0 +1,485 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.DatacenterBroker;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.CloudSimTags;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.lists.VmList;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/*
+ * Broker that submits each cloudlet to its datacenter at the cloudlet's arrival
+ * time instead of sending everything at time zero.
+ *
+ * Cloudlets come from two places: the usual submitCloudletList (held in a heap
+ * ordered on arrival, so VM bindings made beforehand still apply) and an
+ * optional time-ordered source such as a TraceReader, which is only pulled from
+ * when its next arrival is due. Submitted cloudlets are not copied into the
+ * submitted list, so memory is bounded by pending plus in-flight jobs. Finished
+ * cloudlets are handed to the completion listener and only kept in the received
+ * list while retainFinished is on. With a WorkStealingDispatcher set, released
+ * cloudlets beyond its per-VM cap go to an idle VM or wait in the broker and
+ * are handed out as cloudlets return, so idle VMs can take them over. With an
+ * AdmissionController set, each released cloudlet is admitted, deferred or
+ * rejected on its deadline before that; deferred ones wait in the controller.
+ * With an EventRecorder set, VM creation and every cloudlet's arrival,
+ * dispatch, start and finish are recorded.
+ */
+public class StreamingDatacenterBroker extends DatacenterBroker {
+    private static final int CLOUDLET_ARRIVAL = 61001;
+    private static final int ADMISSION_RETRY = 61007;
+    // One call in SAMPLE_EVERY is timed, the rest only counted
+    private static final int SAMPLE_EVERY = 64;
+    private static final Instrumentation.Counter RELEASED = Instrumentation.counter("broker.released");
+    private static final Instrumentation.Counter DISPATCHED = Instrumentation.counter("broker.dispatched");
+    private static final Instrumentation.Timer COMPLETION = Instrumentation.timer("broker.completion", SAMPLE_EVERY);
+
+    private final PriorityQueue<Cloudlet> pending = new PriorityQueue<>(
+            Comparator.comparingDouble(StreamingDatacenterBroker::arrivalTimeOf)
+                    .thenComparingInt(Cloudlet::getCloudletId));
+    private Iterator<? extends Cloudlet> source;
+    private Cloudlet sourceHead;
+    private Consumer<Cloudlet> completionListener;
+    private ObjIntConsumer<Vm> vmCreatedListener;
+    private CloudletBindingPolicy bindingPolicy;
+    private UtilizationHistory history;
+    private Map<Integer, Integer> vmPlacement;
+    private DatacenterSelector datacenterSelector;
+    private WorkStealingDispatcher dispatcher;
+    private Map<Integer, Cloudlet> inFlight;
+    private EventRecorder recorder;
+    private AdmissionController admission;
+    private Instrumentation.Timer selectTimer = Instrumentation.timer("policy.broker.select", SAMPLE_EVERY);
+    private boolean placementRequested;
+    private boolean retainFinished = true;
+    private boolean vmsReady;
+    private boolean arrivalScheduled;
+    private double retryAt = -1; // time of the earliest ADMISSION_RETRY pending, -1 if none
+    private boolean terminated;
+    private int rrIndex;
+    private long released;
+
+    public StreamingDatacenterBroker(String name) throws Exception {
+        super(name);
+    }
+
+    // Source must yield cloudlets in non-decreasing arrival order
+    public void submitArrivals(Iterator<? extends Cloudlet> source) {
+        this.source = source;
+        this.sourceHead = null;
+    }
+
+    public void setCompletionListener(Consumer<Cloudlet> completionListener) {
+        this.completionListener = completionListener;
+    }
+
+    // Told of every VM created, with the id of the datacenter it was created in
+    public void setVmCreatedListener(ObjIntConsumer<Vm> vmCreatedListener) {
+        this.vmCreatedListener = vmCreatedListener;
+    }
+
+    // Policy consulted for cloudlets that arrive without a VM binding
+    public void setBindingPolicy(CloudletBindingPolicy bindingPolicy, UtilizationHistory history) {
+        this.bindingPolicy = bindingPolicy;
+        this.history = history;
+        selectTimer = Instrumentation.timer("policy." + (bindingPolicy != null ? bindingPolicy.getName() : "broker")
+                + ".select", SAMPLE_EVERY);
+    }
+
+    // VM id to datacenter id, used instead of creating every VM in the first datacenter
+    public void setVmPlacement(Map<Integer, Integer> vmPlacement) {
+        this.vmPlacement = vmPlacement;
+    }
+
+    // Routes unbound arrivals to a datacenter before the binding policy picks one of its VMs
+    public void setDatacenterSelector(DatacenterSelector datacenterSelector) {
+        this.datacenterSelector = datacenterSelector;
+    }
+
+    // Caps the cloudlets sent per VM and rebalances the rest on cloudlet returns; null sends everything
+    public void setWorkStealing(WorkStealingDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+        if (dispatcher != null) {
+            dispatcher.setStealListener(this::stolen);
+        }
+    }
+
+    // Keeps the cloudlets sent to datacenters by id until they return, for checkpoints
+    public void setTrackInFlight(boolean track) {
+        this.inFlight = track ? new HashMap<>() : null;
+    }
+
+    // Null admits every cloudlet
+    public void setAdmissionControl(AdmissionController admission) {
+        this.admission = admission;
+    }
+
+    public AdmissionController getAdmissionControl() {
+        return admission;
+    }
+
+    // Null records nothing
+    public void setEventRecorder(EventRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    public EventRecorder getEventRecorder() {
+        return recorder;
+    }
+
+    // Every cloudlet not yet returned: waiting for VMs, pending, deferred, queued for stealing and, if tracked, in flight
+    public void forEachUnfinished(Consumer<Cloudlet> action) {
+        getCloudletList().forEach(action);
+        pending.forEach(action);
+        if (sourceHead != null) {
+            action.accept(sourceHead);
+        }
+        if (admission != null) {
+            admission.forEachDeferred(action);
+        }
+        if (dispatcher != null) {
+            dispatcher.forEachQueued(action);
+        }
+        if (inFlight != null) {
+            inFlight.values().forEach(action);
+        }
+    }
+
+    public void setRetainFinished(boolean retainFinished) {
+        this.retainFinished = retainFinished;
+    }
+
+    public long getReleasedCount() {
+        return released;
+    }
+
+    public int getPendingCount() {
+        return pending.size() + (sourceHead != null ? 1 : 0)
+                + (dispatcher != null ? (int) dispatcher.getQueuedCount() : 0)
+                + (admission != null ? admission.getDeferredCount() : 0);
+    }
+
+    public int getInFlightCount() {
+        return cloudletsSubmitted;
+    }
+
+    // True once the VMs are up and no cloudlet is pending, queued or running
+    public boolean isIdle() {
+        return vmsReady && cloudletsSubmitted == 0 && !arrivalScheduled && getPendingCount() == 0
+                && peekSource() == null;
+    }
+
+    /*
+     * True once the broker has run every cloudlet or has given up because none
+     * of its VMs could be created. Entities that reschedule themselves stop on
+     * this, since the broker never becomes idle without its VMs.
+     */
+    public boolean isTerminated() {
+        return terminated;
+    }
+
+    /*
+     * Moves a cloudlet the datacenter is running or queueing to another VM of
+     * the same datacenter with CLOUDLET_MOVE. The work stealing and admission
+     * bookkeeping is moved to the new VM with it, so its return is accounted
+     * to the VM that was charged for it.
+     */
+    public void moveCloudlet(int cloudletId, long remainingLength, int fromVmId, int toVmId, int datacenterId) {
+        double now = CloudSim.clock();
+        sendNow(datacenterId, CloudSimTags.CLOUDLET_MOVE, new int[] {cloudletId, getId(), fromVmId, toVmId,
+                datacenterId});
+        if (dispatcher != null) {
+            dispatcher.moved(fromVmId, toVmId);
+        }
+        if (admission != null) {
+            admission.moved(cloudletId, remainingLength, fromVmId, toVmId, now);
+        }
+        if (recorder != null) {
+            recorder.record(EventRecorder.MOVE, now, cloudletId, toVmId, datacenterId, fromVmId);
+        }
+    }
+
+    // A queued cloudlet was stolen by another VM before it was sent, so its admission charge follows it
+    private void stolen(Cloudlet cloudlet, int fromVmId, int toVmId) {
+        if (admission != null) {
+            admission.moved(cloudlet.getCloudletId(), cloudlet.getCloudletLength() * cloudlet.getNumberOfPes(),
+                    fromVmId, toVmId, CloudSim.clock());
+        }
+    }
+
+    public static double arrivalTimeOf(Cloudlet cloudlet) {
+        return cloudlet instanceof TraceCloudlet ? ((TraceCloudlet) cloudlet).getArrivalTime() : 0.0;
+    }
+
+    @Override
+    public void processEvent(SimEvent ev) {
+        if (ev.getTag() == CLOUDLET_ARRIVAL) {
+            arrivalScheduled = false;
+            releaseDueCloudlets();
+            scheduleNextArrival();
+            finishIfDone();
+        } else if (ev.getTag() == ADMISSION_RETRY) {
+            if (CloudSim.clock() >= retryAt) {
+                retryAt = -1;
+            }
+            if (admission != null) {
+                admission.retryDue(CloudSim.clock(), this::forward);
+                scheduleRetry();
+            }
+            finishIfDone();
+        } else {
+            super.processEvent(ev);
+        }
+    }
+
+    // The first request sends each VM to its planned datacenter; retries go through the base broker
+    @Override
+    protected void createVmsInDatacenter(int datacenterId) {
+        if (vmPlacement == null || placementRequested) {
+            super.createVmsInDatacenter(datacenterId);
+            return;
+        }
+        placementRequested = true;
+        int requestedVms = 0;
+        for (Vm vm : getVmList()) {
+            Integer target = vmPlacement.get(vm.getId());
+            if (target == null || !getDatacenterIdsList().contains(target)) {
+                target = datacenterId;
+            }
+            Log.printLine(CloudSim.clock() + ": " + getName() + ": Trying to Create VM #" + vm.getId()
+                    + " in " + CloudSim.getEntityName(target));
+            sendNow(target, CloudSimTags.VM_CREATE_ACK, vm);
+            requestedVms++;
+            if (!getDatacenterRequestedIdsList().contains(target)) {
+                getDatacenterRequestedIdsList().add(target);
+            }
+        }
+        setVmsRequested(requestedVms);
+        setVmsAcks(0);
+    }
+
+    @Override
+    protected void processVmCreate(SimEvent ev) {
+        int[] data = (int[]) ev.getData(); // datacenter id, VM id, result
+        Vm vm = data[2] == CloudSimTags.TRUE ? VmList.getById(getVmList(), data[1]) : null;
+        if (recorder != null && data[2] == CloudSimTags.TRUE) {
+            recorder.record(EventRecorder.VM_CREATE, CloudSim.clock(), -1, data[1], data[0],
+                    vm != null ? vm.getMips() * vm.getNumberOfPes() : 0);
+        }
+        super.processVmCreate(ev);
+        if (vmCreatedListener != null && vm != null) {
+            vmCreatedListener.accept(vm, data[0]);
+        }
+    }
+
+    // Called by the base broker once every requested VM has been created
+    @Override
+    protected void submitCloudlets() {
+        vmsReady = true;
+        if (admission != null) {
+            admission.setVms(getVmsCreatedList());
+        }
+        if (dispatcher != null) {
+            dispatcher.setVms(getVmsCreatedList());
+        }
+        pending.addAll(getCloudletList());
+        getCloudletList().clear();
+        releaseDueCloudlets();
+        scheduleNextArrival();
+        // Nothing to run at all
+        finishIfDone();
+    }
+
+    @Override
+    protected void processCloudletReturn(SimEvent ev) {
+        Cloudlet cloudlet = (Cloudlet) ev.getData();
+        if (inFlight != null) {
+            inFlight.remove(cloudlet.getCloudletId());
+        }
+        if (admission != null) {
+            admission.completed(cloudlet, CloudSim.clock());
+        }
+        if (recorder != null) {
+            recorder.record(EventRecorder.START, cloudlet.getExecStartTime(), cloudlet.getCloudletId(),
+                    cloudlet.getVmId(), cloudlet.getResourceId(), 0);
+            recorder.record(EventRecorder.FINISH, CloudSim.clock(), cloudlet.getCloudletId(), cloudlet.getVmId(),
+                    cloudlet.getResourceId(), cloudlet.getActualCPUTime());
+        }
+        if (retainFinished) {
+            getCloudletReceivedList().add(cloudlet);
+        }
+        if (completionListener != null) {
+            long started = COMPLETION.start();
+            completionListener.accept(cloudlet);
+            COMPLETION.stop(started);
+        }
+        cloudletsSubmitted--;
+        if (dispatcher != null) {
+            Cloudlet next = dispatcher.next(cloudlet.getVmId());
+            if (next != null) {
+                dispatch(next);
+            }
+        }
+        // The returned cloudlet freed room for the ones deferred on its VM
+        if (admission != null) {
+            admission.retry(cloudlet.getVmId(), CloudSim.clock(), this::forward);
+            scheduleRetry();
+        }
+        finishIfDone();
+    }
+
+    // Rejected cloudlets never return, so this is also checked after arrivals and retries
+    private void finishIfDone() {
+        if (!terminated && vmsReady && cloudletsSubmitted == 0 && !arrivalScheduled && getPendingCount() == 0
+                && peekSource() == null) {
+            Log.printLine(CloudSim.clock() + ": " + getName() + ": All Cloudlets executed. Finishing...");
+            clearDatacenters();
+            finishExecution();
+        }
+    }
+
+    // Also reached from the base broker when no VM could be created
+    @Override
+    protected void finishExecution() {
+        terminated = true;
+        super.finishExecution();
+    }
+
+    // Picks a VM for a cloudlet that was not bound before it arrived
+    protected int selectVm(Cloudlet cloudlet) {
+        List<Vm> created = getVmsCreatedList();
+        List<Vm> candidates = created;
+        if (datacenterSelector != null) {
+            List<Vm> local = datacenterSelector.getVms(datacenterSelector.select(cloudlet));
+            if (!local.isEmpty()) {
+                candidates = local;
+            }
+        }
+        if (bindingPolicy != null) {
+            int vmId = bindingPolicy.selectVm(cloudlet, candidates, history);
+            if (vmId != -1 && getVmsToDatacentersMap().containsKey(vmId)) {
+                return vmId;
+            }
+        }
+        Vm vm = created.get(rrIndex);
+        rrIndex = (rrIndex + 1) % created.size();
+        return vm.getId();
+    }
+
+    private void releaseDueCloudlets() {
+        if (!vmsReady) {
+            return;
+        }
+        double now = CloudSim.clock();
+        while (true) {
+            Cloudlet next = pending.peek();
+            Cloudlet head = peekSource();
+            if (head != null && (next == null || arrivalTimeOf(head) < arrivalTimeOf(next))) {
+                if (arrivalTimeOf(head) > now) {
+                    return;
+                }
+                sourceHead = null;
+                release(head);
+            } else if (next != null && arrivalTimeOf(next) <= now) {
+                release(pending.poll());
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void release(Cloudlet cloudlet) {
+        if (recorder != null) {
+            recorder.record(EventRecorder.SUBMIT, CloudSim.clock(), cloudlet.getCloudletId(), cloudlet.getVmId(), -1,
+                    cloudlet.getCloudletLength());
+        }
+        Integer datacenterId = cloudlet.getVmId() == -1 ? null : getVmsToDatacentersMap().get(cloudlet.getVmId());
+        if (datacenterId == null) {
+            if (cloudlet.getVmId() != -1) {
+                Log.printLine(CloudSim.clock() + ": " + getName() + ": VM #" + cloudlet.getVmId()
+                        + " was not created, rebinding cloudlet #" + cloudlet.getCloudletId());
+            }
+            long started = selectTimer.start();
+            cloudlet.setVmId(selectVm(cloudlet));
+            selectTimer.stop(started);
+        }
+        released++;
+        RELEASED.increment();
+        if (admission != null) {
+            AdmissionController.Decision decision = admission.admit(cloudlet, CloudSim.clock());
+            if (decision != AdmissionController.Decision.ADMIT) {
+                if (decision == AdmissionController.Decision.REJECT) {
+                    Log.printLine(CloudSim.clock() + ": " + getName() + ": Cloudlet #" + cloudlet.getCloudletId()
+                            + " rejected, it cannot meet its deadline");
+                }
+                scheduleRetry();
+                return;
+            }
+        }
+        forward(cloudlet);
+    }
+
+    // Through the work stealing queues when they are on
+    private void forward(Cloudlet cloudlet) {
+        if (dispatcher == null || dispatcher.admit(cloudlet)) {
+            dispatch(cloudlet);
+        }
+    }
+
+    // Wakes up at the earliest latest start time, so that head is admitted or rejected even if nothing returns
+    private void scheduleRetry() {
+        double next = admission.nextRetryTime();
+        if (next < 0 || (retryAt >= 0 && retryAt <= next)) {
+            return;
+        }
+        retryAt = Math.max(next, CloudSim.clock());
+        schedule(getId(), retryAt - CloudSim.clock(), ADMISSION_RETRY);
+    }
+
+    private void dispatch(Cloudlet cloudlet) {
+        int datacenterId = getVmsToDatacentersMap().get(cloudlet.getVmId());
+        if (recorder != null) {
+            recorder.record(EventRecorder.BIND, CloudSim.clock(), cloudlet.getCloudletId(), cloudlet.getVmId(),
+                    datacenterId, 0);
+        }
+        sendNow(datacenterId, CloudSimTags.CLOUDLET_SUBMIT, cloudlet);
+        cloudletsSubmitted++;
+        DISPATCHED.increment();
+        if (inFlight != null) {
+            inFlight.put(cloudlet.getCloudletId(), cloudlet);
+        }
+    }
+
+    private void scheduleNextArrival() {
+        if (!vmsReady || arrivalScheduled) {
+            return;
+        }
+        double next = Double.MAX_VALUE;
+        if (!pending.isEmpty()) {
+            next = arrivalTimeOf(pending.peek());
+        }
+        Cloudlet head = peekSource();
+        if (head != null) {
+            next = Math.min(next, arrivalTimeOf(head));
+        }
+        if (next == Double.MAX_VALUE) {
+            return;
+        }
+        schedule(getId(), Math.max(0, next - CloudSim.clock()), CLOUDLET_ARRIVAL);
+        arrivalScheduled = true;
+    }
+
+    private Cloudlet peekSource() {
+        if (sourceHead == null && source != null && source.hasNext()) {
+            sourceHead = source.next();
+            sourceHead.setUserId(getId());
+        }
+        return sourceHead;
+    }
+}
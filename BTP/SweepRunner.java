@@ -0,0 +1,131 @@
+package org.cloudbus.cloudsim.examples;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/*
+ * Runs a grid of simulations in parallel and collects one results table.
+ *
+ * Each grid point runs in a forked SweepWorker JVM (CloudSim state is static,
+ * so points cannot share a JVM), with as many workers at once as there are
+ * cores unless --parallel says otherwise. Rows come out in grid order. The
+ * exit status is 1 when any point failed, 2 when the results cannot be written.
+ *
+ * Usage: SweepRunner --vms 10,100 --cloudlets 1000,10000 --policies dynamicrr,sjf
+ *                    --seeds 1,2,3 --dcs 1,4 [--parallel N] [--out results.csv]
+ *                    [--jvm-args "-Xmx2g"]
+ */
+public class SweepRunner {
+    public static void main(String[] args) {
+        Map<String, String> options = parseOptions(args);
+        List<String> vms = split(options.getOrDefault("vms", "10"));
+        List<String> cloudlets = split(options.getOrDefault("cloudlets", "100"));
+        List<String> policies = split(options.getOrDefault("policies", BindingPolicyRegistry.DEFAULT_POLICY));
+        List<String> seeds = split(options.getOrDefault("seeds", "1"));
+        List<String> dcs = split(options.getOrDefault("dcs", "4"));
+        int parallel = Integer.parseInt(options.getOrDefault("parallel",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        List<String> jvmArgs = split(options.getOrDefault("jvm-args", ""), " ");
+
+        List<String[]> grid = new ArrayList<>();
+        for (String v : vms) {
+            for (String c : cloudlets) {
+                for (String p : policies) {
+                    for (String s : seeds) {
+                        for (String d : dcs) {
+                            grid.add(new String[] {v, c, p, s, d});
+                        }
+                    }
+                }
+            }
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, parallel));
+        List<Future<String>> results = new ArrayList<>();
+        for (String[] point : grid) {
+            results.add(pool.submit(() -> runPoint(point, jvmArgs)));
+        }
+        pool.shutdown();
+
+        int failed = 0;
+        try (PrintStream out = options.containsKey("out")
+                ? new PrintStream(new FileOutputStream(options.get("out")), false, "UTF-8") : null) {
+            PrintStream target = out != null ? out : System.out;
+            target.println(SweepWorker.RESULT_HEADER);
+            for (int i = 0; i < grid.size(); i++) {
+                try {
+                    target.println(results.get(i).get());
+                } catch (ExecutionException e) {
+                    failed++;
+                    System.err.println("Point " + String.join(",", grid.get(i)) + " failed: " + e.getCause().getMessage());
+                }
+            }
+            target.flush();
+            System.err.println("Sweep finished: " + (grid.size() - failed) + " of " + grid.size() + " points succeeded");
+        } catch (IOException | InterruptedException e) {
+            e.printStackTrace();
+            System.exit(2);
+        }
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Forks a SweepWorker JVM for one grid point and returns its result row
+    private static String runPoint(String[] point, List<String> jvmArgs) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(SweepWorker.class.getName());
+        command.addAll(Arrays.asList(point));
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String result = null;
+        StringBuilder output = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(SweepWorker.RESULT_PREFIX)) {
+                    result = line.substring(SweepWorker.RESULT_PREFIX.length());
+                } else if (output.length() < 4096) {
+                    output.append(line).append('\n');
+                }
+            }
+        }
+        int exit = process.waitFor();
+        if (exit != 0 || result == null) {
+            throw new IOException("worker exited with " + exit + "\n" + output);
+        }
+        return result;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --option value pairs, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    private static List<String> split(String value) {
+        return split(value, ",");
+    }
+
+    private static List<String> split(String value, String separator) {
+        List<String> parts = new ArrayList<>();
+        for (String part : value.split(separator)) {
+            if (!part.trim().isEmpty()) {
+                parts.add(part.trim());
+            }
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,72 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.*;
+
+/*
+ * Runs one point of a parameter sweep in its own JVM and prints a single
+ * RESULT line. CloudSim keeps its state in static fields, so SweepRunner
+ * forks one of these per point instead of running simulations in threads.
+ *
+ * Usage: SweepWorker <vms> <cloudlets> <policy> <seed> <datacenters>
+ */
+public class SweepWorker {
+    public static final String RESULT_PREFIX = "RESULT,";
+    public static final String RESULT_HEADER = "vms,cloudlets,policy,seed,datacenters,"
+            + "finished,makespan,meanResponseTime,totalCpuTime,wallTimeMs";
+
+    // Stateless, so one instance is shared by every cloudlet
+    private static final UtilizationModel UTILIZATION_MODEL = new UtilizationModelFull();
+
+    public static void main(String[] args) {
+        if (args.length < 5) {
+            System.err.println("Usage: SweepWorker <vms> <cloudlets> <policy> <seed> <datacenters>");
+            System.exit(2);
+        }
+        int numVms = Integer.parseInt(args[0]);
+        int numCloudlets = Integer.parseInt(args[1]);
+        String policyName = args[2];
+        long seed = Long.parseLong(args[3]);
+        int numDatacenters = Integer.parseInt(args[4]);
+        try {
+            Log.disable();
+            String result = run(numVms, numCloudlets, policyName, seed, numDatacenters);
+            System.out.println(RESULT_PREFIX + result);
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    // Runs the simulation and returns the result columns after the prefix
+    public static String run(int numVms, int numCloudlets, String policyName, long seed, int numDatacenters)
+            throws Exception {
+        long started = System.nanoTime();
+        // Aggregate on completion so the received list does not have to be kept
+        double[] totals = new double[4]; // finished, makespan, response time sum, cpu time sum
+        // A -Dtopology spec or -Dscheduler (passed through --jvm-args) applies here as in the drivers
+        SimulationBuilder.Simulation simulation = new SimulationBuilder()
+                .vms(numVms)
+                .datacenters(numDatacenters)
+                .cloudlets(numCloudlets, seed, (i, rand) -> new TraceCloudlet(i, rand.nextInt(24),
+                        (i % 38) * 850 + 1000, SimulationBuilder.VM_PES_NUMBER, (i * 450L) % 600, (i * 450L) % 600,
+                        UTILIZATION_MODEL))
+                .policy(BindingPolicyRegistry.create(policyName))
+                .retainFinished(false)
+                .completionListener(cloudlet -> {
+                    if (cloudlet.getCloudletStatus() == Cloudlet.SUCCESS) {
+                        totals[0]++;
+                        totals[1] = Math.max(totals[1], cloudlet.getFinishTime());
+                        totals[2] += cloudlet.getFinishTime() - StreamingDatacenterBroker.arrivalTimeOf(cloudlet);
+                        totals[3] += cloudlet.getActualCPUTime();
+                    }
+                })
+                .build();
+        simulation.run();
+
+        long wallTimeMs = (System.nanoTime() - started) / 1000000;
+        double meanResponse = totals[0] > 0 ? totals[2] / totals[0] : 0;
+        return numVms + "," + numCloudlets + "," + simulation.getPolicy().getName() + "," + seed + ","
+                + numDatacenters + "," + (long) totals[0] + "," + totals[1] + "," + meanResponse + "," + totals[3]
+                + "," + wallTimeMs;
+    }
+}
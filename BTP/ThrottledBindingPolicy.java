@@ -0,0 +1,75 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Throttled load balancing on top of ThrottledLoadBalancer. Arrivals go through
+ * one balancer per VM list, seeded from the history means and rebuilt once a
+ * history window has passed, so the work projected onto a VM is replaced by
+ * what the VM was measured doing. Arrivals that find every VM throttled are
+ * left to the broker, like the batch leftovers.
+ */
+public class ThrottledBindingPolicy implements CloudletBindingPolicy {
+    public static final String NAME = "throttled";
+
+    private final double cpuThreshold;
+    private final double historyWindow;
+    private final Map<List<? extends Vm>, ThrottledLoadBalancer> balancers = new IdentityHashMap<>();
+    private final Map<List<? extends Vm>, Double> seededAt = new IdentityHashMap<>();
+
+    public ThrottledBindingPolicy(double cpuThreshold, double historyWindow) {
+        this.cpuThreshold = cpuThreshold;
+        this.historyWindow = historyWindow;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void bind(List<? extends Vm> vmList, List<? extends Cloudlet> cloudletList, UtilizationHistory history) {
+        ThrottledLoadBalancer balancer = newBalancer(vmList, history);
+        for (Cloudlet cloudlet : cloudletList) {
+            if (cloudlet.getVmId() == -1) { // Cloudlet not yet assigned to any VM
+                balancer.submit(cloudlet);
+            }
+        }
+        balancer.assign();
+        // One sample per VM that received work, capped at 100%
+        for (int i = 0; i < balancer.getVmCount(); i++) {
+            if (balancer.getAssignedCount(i) > 0) {
+                history.add(balancer.getVm(i).getId(), Math.min(1.0, balancer.getProjectedUtilization(i)));
+            }
+        }
+        // Arrivals start from the utilization this batch left behind
+        balancers.remove(vmList);
+    }
+
+    @Override
+    public int selectVm(Cloudlet cloudlet, List<? extends Vm> vmList, UtilizationHistory history) {
+        Vm vm = balancerFor(vmList, history).select(cloudlet);
+        return vm == null ? -1 : vm.getId();
+    }
+
+    private ThrottledLoadBalancer balancerFor(List<? extends Vm> vmList, UtilizationHistory history) {
+        double now = CloudSim.clock();
+        ThrottledLoadBalancer balancer = balancers.get(vmList);
+        if (balancer == null || balancer.getVmCount() != vmList.size() || now - seededAt.get(vmList) >= historyWindow) {
+            balancer = newBalancer(vmList, history);
+            balancers.put(vmList, balancer);
+            seededAt.put(vmList, now);
+        }
+        return balancer;
+    }
+
+    private ThrottledLoadBalancer newBalancer(List<? extends Vm> vmList, UtilizationHistory history) {
+        return new ThrottledLoadBalancer(vmList, vm -> history.mean(vm.getId()), cpuThreshold, historyWindow);
+    }
+}
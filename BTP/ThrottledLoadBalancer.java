@@ -0,0 +1,131 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Vm;
+
+import java.util.*;
+import java.util.function.ToDoubleFunction;
+
+/*
+ * Throttled load balancer: every unassigned cloudlet goes to the least loaded
+ * VM whose projected utilization is still under the threshold. VMs sit in a
+ * binary min-heap keyed on projected utilization, so each cloudlet is assigned
+ * exactly once in O(log V). A VM that reaches the threshold leaves the heap;
+ * cloudlets left over when no VM is available stay in the unassigned queue.
+ *
+ * Projected utilization starts from the caller's estimate and grows by the
+ * fraction of the history window a cloudlet keeps the VM busy.
+ */
+public class ThrottledLoadBalancer {
+    private final Vm[] vms;
+    private final double[] utilization;
+    private final int[] assigned;
+    private final int[] heap;
+    private int heapSize;
+    private final double threshold;
+    private final double window;
+    private final ArrayDeque<Cloudlet> unassigned = new ArrayDeque<>();
+
+    public ThrottledLoadBalancer(List<? extends Vm> vmList, ToDoubleFunction<Vm> currentUtilization,
+                                 double threshold, double window) {
+        int size = vmList.size();
+        this.vms = vmList.toArray(new Vm[size]);
+        this.utilization = new double[size];
+        this.assigned = new int[size];
+        this.heap = new int[size];
+        this.threshold = threshold;
+        this.window = window;
+        for (int i = 0; i < size; i++) {
+            utilization[i] = currentUtilization.applyAsDouble(vms[i]);
+            if (utilization[i] < threshold) {
+                heap[heapSize++] = i;
+            }
+        }
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    public void submit(Cloudlet cloudlet) {
+        unassigned.add(cloudlet);
+    }
+
+    /*
+     * Binds queued cloudlets until the queue is empty or every VM is throttled.
+     * The VM id is set on the cloudlet directly, which is what
+     * DatacenterBroker.bindCloudletToVm does after its linear lookup by id.
+     */
+    public int assign() {
+        int count = 0;
+        while (heapSize > 0 && !unassigned.isEmpty()) {
+            select(unassigned.poll());
+            count++;
+        }
+        return count;
+    }
+
+    // Binds one cloudlet the same way, bypassing the queue; null when every VM is throttled
+    public Vm select(Cloudlet cloudlet) {
+        if (heapSize == 0) {
+            return null;
+        }
+        int index = heap[0];
+        Vm vm = vms[index];
+        cloudlet.setVmId(vm.getId());
+        assigned[index]++;
+        utilization[index] += cloudlet.getCloudletLength() * (double) cloudlet.getNumberOfPes()
+                / (vm.getMips() * vm.getNumberOfPes() * window);
+        if (utilization[index] >= threshold) {
+            heap[0] = heap[--heapSize];
+        }
+        siftDown(0);
+        return vm;
+    }
+
+    public Queue<Cloudlet> getUnassigned() {
+        return unassigned;
+    }
+
+    public int getVmCount() {
+        return vms.length;
+    }
+
+    public Vm getVm(int index) {
+        return vms[index];
+    }
+
+    public double getProjectedUtilization(int index) {
+        return utilization[index];
+    }
+
+    public int getAssignedCount(int index) {
+        return assigned[index];
+    }
+
+    private void siftDown(int pos) {
+        if (heapSize == 0) {
+            return;
+        }
+        int item = heap[pos];
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && less(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!less(heap[child], item)) {
+                break;
+            }
+            heap[pos] = heap[child];
+            pos = child;
+        }
+        heap[pos] = item;
+    }
+
+    // Ties go to the lower index so identical VMs fill in list order
+    private boolean less(int a, int b) {
+        return utilization[a] < utilization[b] || (utilization[a] == utilization[b] && a < b);
+    }
+}
@@ -0,0 +1,19 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.UtilizationModel;
+
+// Cloudlet read from a workload trace, carrying the arrival time recorded in the trace
+public class TraceCloudlet extends Cloudlet {
+    private final double arrivalTime;
+
+    public TraceCloudlet(int id, double arrivalTime, long length, int pes, long fileSize, long outputSize,
+                         UtilizationModel utilizationModel) {
+        super(id, length, pes, fileSize, outputSize, utilizationModel, utilizationModel, utilizationModel);
+        this.arrivalTime = arrivalTime;
+    }
+
+    public double getArrivalTime() {
+        return arrivalTime;
+    }
+}
@@ -0,0 +1,372 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.UtilizationModel;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/*
+ * Streams cloudlets out of a workload trace without loading the whole file.
+ *
+ * Two formats are understood:
+ *   SWF - Standard Workload Format, whitespace separated, ';' comment lines.
+ *         Uses submit time (field 2), run time (field 4) and allocated/requested
+ *         processors (fields 5/8). Length in MI is run time * reference MIPS.
+ *   CSV - arrival,length,pes,fileSize,outputSize (Google-cluster style export).
+ *         A header line and '#' comment lines are skipped; ",," is an empty
+ *         column, read as 0.
+ *
+ * Numbers may have a fraction and an exponent (1.5e3). A line with any other
+ * field is skipped: the first line with content as a header, later ones as
+ * malformed, the first few of which are logged by line number; all of them are
+ * counted, see getSkippedLines.
+ *
+ * Lines are parsed straight out of a reused NIO buffer into a primitive field
+ * array, so no per-field objects are created. At most `lookahead` parsed jobs are
+ * held in memory; they are kept in a min-heap on arrival time so a trace that is
+ * only locally out of order still comes out sorted.
+ */
+public class TraceReader implements Iterator<TraceCloudlet>, Closeable {
+    public enum Format { SWF, CSV }
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int MAX_FIELDS = 18;
+    private static final long DEFAULT_FILE_SIZE = 300;
+    private static final long DEFAULT_OUTPUT_SIZE = 300;
+    private static final int LOGGED_SKIPS = 10;
+    // Stateless, so one instance is shared by every cloudlet the reader creates
+    private static final UtilizationModel UTILIZATION_MODEL = new UtilizationModelFull();
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final Format format;
+    private final int lookahead;
+    private final double referenceMips;
+    private final int maxPes;
+    private final double[] fields = new double[MAX_FIELDS];
+    private final PriorityQueue<TraceCloudlet> window;
+    private boolean eof;
+    private int nextId;
+    private long linesRead;
+    private long skippedLines;
+    private boolean headerPassed;
+    private long bytesConsumed;
+    private double timeShift;
+
+    public TraceReader(String path, Format format, int lookahead, double referenceMips, int maxPes) throws IOException {
+        if (lookahead < 1) {
+            throw new IllegalArgumentException("lookahead must be at least 1");
+        }
+        this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.buffer.flip(); // start empty so the first read refills it
+        this.format = format;
+        this.lookahead = lookahead;
+        this.referenceMips = referenceMips;
+        this.maxPes = maxPes;
+        this.window = new PriorityQueue<>(lookahead, Comparator
+                .comparingDouble(TraceCloudlet::getArrivalTime)
+                .thenComparingInt(TraceCloudlet::getCloudletId));
+    }
+
+    // Picks the format from the file extension: *.swf is SWF, anything else CSV
+    public static TraceReader open(String path, int lookahead, double referenceMips, int maxPes) throws IOException {
+        Format format = path.toLowerCase().endsWith(".swf") ? Format.SWF : Format.CSV;
+        return new TraceReader(path, format, lookahead, referenceMips, maxPes);
+    }
+
+    @Override
+    public boolean hasNext() {
+        fill();
+        return !window.isEmpty();
+    }
+
+    @Override
+    public TraceCloudlet next() {
+        fill();
+        TraceCloudlet cloudlet = window.poll();
+        if (cloudlet == null) {
+            throw new NoSuchElementException();
+        }
+        return cloudlet;
+    }
+
+    // Arrival time of the next cloudlet, or -1 once the trace is exhausted
+    public double peekArrivalTime() {
+        fill();
+        TraceCloudlet cloudlet = window.peek();
+        return cloudlet == null ? -1 : cloudlet.getArrivalTime();
+    }
+
+    // Reads up to max cloudlets into the given list and returns how many were added
+    public int nextBatch(List<? super TraceCloudlet> batch, int max) {
+        int added = 0;
+        while (added < max && hasNext()) {
+            batch.add(next());
+            added++;
+        }
+        return added;
+    }
+
+    // Continues parsing at a checkpointed position; only valid before anything has been read
+    public void resumeAt(long byteOffset, int nextCloudletId, long lines) throws IOException {
+        channel.position(byteOffset);
+        buffer.clear();
+        buffer.flip();
+        window.clear();
+        eof = false;
+        bytesConsumed = byteOffset;
+        nextId = nextCloudletId;
+        linesRead = lines;
+        headerPassed = true;
+    }
+
+    // Subtracted from every arrival time, so a resumed run starts at clock zero
+    public void setTimeShift(double timeShift) {
+        this.timeShift = timeShift;
+    }
+
+    // Jobs already parsed but not handed out yet; they are part of getBytesConsumed
+    public Collection<TraceCloudlet> getBuffered() {
+        return Collections.unmodifiableCollection(window);
+    }
+
+    public int getNextId() {
+        return nextId;
+    }
+
+    public long getLinesRead() {
+        return linesRead;
+    }
+
+    // Lines after the header that had a non-numeric field and were dropped
+    public long getSkippedLines() {
+        return skippedLines;
+    }
+
+    // Byte offset in the trace file up to which lines have been parsed
+    public long getBytesConsumed() {
+        return bytesConsumed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void fill() {
+        try {
+            while (!eof && window.size() < lookahead) {
+                TraceCloudlet cloudlet = readRecord();
+                if (cloudlet != null) {
+                    window.add(cloudlet);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read trace", e);
+        }
+    }
+
+    // Parses lines until one yields a job; returns null at end of file
+    private TraceCloudlet readRecord() throws IOException {
+        while (true) {
+            int count = readLine();
+            if (count < 0) {
+                eof = true;
+                return null;
+            }
+            if (count == 0) {
+                continue; // blank, comment or header line
+            }
+            TraceCloudlet cloudlet = format == Format.SWF ? fromSwf(count) : fromCsv(count);
+            if (cloudlet != null) {
+                return cloudlet;
+            }
+        }
+    }
+
+    private TraceCloudlet fromSwf(int count) {
+        if (count < 5) {
+            return null;
+        }
+        double submitTime = fields[1];
+        double runTime = fields[3];
+        int pes = (int) fields[4];
+        if (pes <= 0 && count >= 8) {
+            pes = (int) fields[7];
+        }
+        if (runTime <= 0 || pes <= 0) {
+            return null; // cancelled or unknown jobs are marked -1 in SWF
+        }
+        long length = Math.max(1, (long) (runTime * referenceMips));
+        return new TraceCloudlet(nextId++, Math.max(0, submitTime) - timeShift, length, clampPes(pes),
+                DEFAULT_FILE_SIZE, DEFAULT_OUTPUT_SIZE, UTILIZATION_MODEL);
+    }
+
+    private TraceCloudlet fromCsv(int count) {
+        if (count < 2) {
+            return null;
+        }
+        long length = (long) fields[1];
+        if (length <= 0) {
+            return null;
+        }
+        int pes = count > 2 ? (int) fields[2] : 1;
+        long fileSize = count > 3 ? (long) fields[3] : DEFAULT_FILE_SIZE;
+        long outputSize = count > 4 ? (long) fields[4] : DEFAULT_OUTPUT_SIZE;
+        return new TraceCloudlet(nextId++, Math.max(0, fields[0]) - timeShift, length, clampPes(Math.max(1, pes)),
+                fileSize, outputSize, UTILIZATION_MODEL);
+    }
+
+    private int clampPes(int pes) {
+        return maxPes > 0 ? Math.min(pes, maxPes) : pes;
+    }
+
+    /*
+     * Parses one line into `fields` and returns the number of fields found,
+     * 0 for lines to skip and -1 at end of file. Numbers are accumulated
+     * digit by digit; a field that is not numeric marks the first line with
+     * content as a header and any later one as malformed.
+     */
+    private int readLine() throws IOException {
+        int count = 0;
+        boolean inField = false;
+        boolean closedSinceComma = false; // a field ended after the last comma, so the next comma is not an empty column
+        boolean negative = false;
+        boolean fraction = false;
+        boolean digits = false;
+        boolean exponent = false;
+        boolean exponentNegative = false;
+        int exponentValue = 0;
+        boolean comment = false;
+        boolean malformed = false;
+        boolean any = false;
+        double value = 0;
+        double scale = 1;
+        int b;
+        while ((b = nextByte()) >= 0) {
+            any = true;
+            if (b == '\n') {
+                break;
+            }
+            if (comment || malformed) {
+                continue;
+            }
+            if (!inField && count == 0 && (b == ';' || b == '#')) {
+                comment = true;
+                continue;
+            }
+            boolean separator = b == ' ' || b == '\t' || b == '\r' || (format == Format.CSV && b == ',');
+            if (separator) {
+                if (inField && exponent && !digits) {
+                    malformed = true; // "1e" with nothing after it
+                    continue;
+                }
+                if (inField) {
+                    count = store(count, number(negative, value, exponentNegative ? -exponentValue : exponentValue));
+                    inField = false;
+                    closedSinceComma = true;
+                } else if (b == ',' && !closedSinceComma) {
+                    count = store(count, 0); // empty CSV column
+                }
+                if (b == ',') {
+                    closedSinceComma = false;
+                }
+                continue;
+            }
+            if (!inField) {
+                inField = true;
+                negative = false;
+                fraction = false;
+                digits = false;
+                exponent = false;
+                exponentNegative = false;
+                exponentValue = 0;
+                value = 0;
+                scale = 1;
+            }
+            if (b >= '0' && b <= '9') {
+                digits = true;
+                if (exponent) {
+                    exponentValue = Math.min(exponentValue * 10 + (b - '0'), 1000);
+                } else if (fraction) {
+                    scale /= 10;
+                    value += (b - '0') * scale;
+                } else {
+                    value = value * 10 + (b - '0');
+                }
+            } else if (exponent && (b == '-' || b == '+') && !digits) {
+                exponentNegative = b == '-';
+            } else if ((b == 'e' || b == 'E') && digits && !exponent) {
+                exponent = true;
+                digits = false; // the exponent needs digits of its own
+            } else if (b == '-' && !digits && !negative && !fraction) {
+                negative = true;
+            } else if (b == '.' && !fraction && !exponent) {
+                fraction = true;
+            } else {
+                malformed = true;
+            }
+        }
+        if (!any) {
+            return -1;
+        }
+        linesRead++;
+        if (inField && exponent && !digits) {
+            malformed = true; // "1e" with nothing after it
+        }
+        if (malformed) {
+            if (headerPassed) {
+                skippedLines++;
+                if (skippedLines <= LOGGED_SKIPS) {
+                    Log.printLine("Trace line " + linesRead + " is not numeric, skipped"
+                            + (skippedLines == LOGGED_SKIPS ? " (further ones are only counted)" : ""));
+                }
+            }
+            headerPassed = true;
+            return 0;
+        }
+        if (comment) {
+            return 0;
+        }
+        if (inField) {
+            count = store(count, number(negative, value, exponentNegative ? -exponentValue : exponentValue));
+        }
+        if (count > 0) {
+            headerPassed = true;
+        }
+        return count;
+    }
+
+    private static double number(boolean negative, double value, int exponent) {
+        double number = exponent != 0 ? value * Math.pow(10, exponent) : value;
+        return negative ? -number : number;
+    }
+
+    private int store(int count, double value) {
+        if (count < MAX_FIELDS) {
+            fields[count] = value;
+        }
+        return count + 1;
+    }
+
+    private int nextByte() throws IOException {
+        if (!buffer.hasRemaining()) {
+            buffer.clear();
+            int read = channel.read(buffer);
+            buffer.flip();
+            if (read <= 0) {
+                return -1;
+            }
+        }
+        bytesConsumed++;
+        return buffer.get() & 0xff;
+    }
+}
@@ -0,0 +1,127 @@
+package org.cloudbus.cloudsim.examples;
+
+import java.util.Arrays;
+
+/*
+ * Sliding-window CPU utilization history for every VM, indexed by VM id.
+ *
+ * All samples live in one flat double[] holding a fixed-size ring per VM, so
+ * adding a sample never boxes or shifts. A running sum gives the window mean
+ * in O(1); it is recomputed from the ring each time the ring wraps so rounding
+ * error cannot build up. An exponentially weighted mean is kept alongside, and
+ * percentiles are computed on demand from a copy of the window.
+ */
+public class UtilizationHistory {
+    private static final int INITIAL_VMS = 16;
+
+    private final int window;
+    private final double alpha;
+    private double[] samples;
+    private int[] head;
+    private int[] count;
+    private double[] sum;
+    private double[] ewma;
+    private final double[] scratch;
+
+    public UtilizationHistory(int window) {
+        this(window, 0.5);
+    }
+
+    public UtilizationHistory(int window, double alpha) {
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be at least 1");
+        }
+        if (alpha <= 0 || alpha > 1) {
+            throw new IllegalArgumentException("alpha must be in (0, 1]");
+        }
+        this.window = window;
+        this.alpha = alpha;
+        this.scratch = new double[window];
+        allocate(INITIAL_VMS);
+    }
+
+    public void add(int vmId, double sample) {
+        ensureCapacity(vmId);
+        int base = vmId * window;
+        int pos = head[vmId];
+        if (count[vmId] == window) {
+            sum[vmId] -= samples[base + pos];
+        } else {
+            count[vmId]++;
+        }
+        samples[base + pos] = sample;
+        sum[vmId] += sample;
+        ewma[vmId] = count[vmId] == 1 ? sample : alpha * sample + (1 - alpha) * ewma[vmId];
+        pos++;
+        if (pos == window) {
+            pos = 0;
+            double exact = 0;
+            for (int i = 0; i < window; i++) {
+                exact += samples[base + i];
+            }
+            sum[vmId] = exact;
+        }
+        head[vmId] = pos;
+    }
+
+    // Mean over the window, 0 when the VM has no history
+    public double mean(int vmId) {
+        if (vmId >= count.length || count[vmId] == 0) {
+            return 0.0;
+        }
+        return sum[vmId] / count[vmId];
+    }
+
+    public double ewma(int vmId) {
+        if (vmId >= count.length || count[vmId] == 0) {
+            return 0.0;
+        }
+        return ewma[vmId];
+    }
+
+    // Nearest-rank percentile of the window, p in [0, 100]
+    public double percentile(int vmId, double p) {
+        int n = size(vmId);
+        if (n == 0) {
+            return 0.0;
+        }
+        System.arraycopy(samples, vmId * window, scratch, 0, n);
+        Arrays.sort(scratch, 0, n);
+        int rank = (int) Math.ceil(p / 100.0 * n);
+        return scratch[Math.max(0, Math.min(n - 1, rank - 1))];
+    }
+
+    public int size(int vmId) {
+        return vmId < count.length ? count[vmId] : 0;
+    }
+
+    public void clear(int vmId) {
+        if (vmId < count.length) {
+            head[vmId] = 0;
+            count[vmId] = 0;
+            sum[vmId] = 0;
+            ewma[vmId] = 0;
+        }
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    private void ensureCapacity(int vmId) {
+        if (vmId < 0) {
+            throw new IllegalArgumentException("negative VM id " + vmId);
+        }
+        if (vmId >= count.length) {
+            allocate(Math.max(vmId + 1, count.length * 2));
+        }
+    }
+
+    private void allocate(int vms) {
+        samples = samples == null ? new double[vms * window] : Arrays.copyOf(samples, vms * window);
+        head = head == null ? new int[vms] : Arrays.copyOf(head, vms);
+        count = count == null ? new int[vms] : Arrays.copyOf(count, vms);
+        sum = sum == null ? new double[vms] : Arrays.copyOf(sum, vms);
+        ewma = ewma == null ? new double[vms] : Arrays.copyOf(ewma, vms);
+    }
+}
@@ -0,0 +1,130 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.ResCloudlet;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+
+import java.util.*;
+
+/*
+ * Samples the CPU utilization of every created VM each `interval` simulated
+ * seconds, from the cloudlets in its scheduler's exec list, into a
+ * UtilizationHistory. A history of window / interval samples therefore covers
+ * a window in seconds.
+ *
+ * A VM is hot when its mean utilization is above the threshold and it holds more
+ * cloudlet PEs than it has, so cloudlets are sharing its cores or, under a
+ * space-shared scheduler, queueing for them. Each hot VM sends the running or
+ * queued cloudlet with the most work left to a cold VM (mean below
+ * the threshold, spare PEs) in the same datacenter, through the broker so its
+ * work stealing and admission state follow the cloudlet. The datacenter keeps
+ * the work already done. The monitor stops once the broker
+ * has terminated.
+ */
+public class UtilizationMonitor extends SimEntity {
+    private static final int SAMPLE = 61002;
+
+    private final StreamingDatacenterBroker broker;
+    private final UtilizationHistory history;
+    private final double interval;
+    private final double threshold;
+    private long samples;
+    private long moves;
+
+    public UtilizationMonitor(String name, StreamingDatacenterBroker broker, UtilizationHistory history,
+                              double interval, double threshold) {
+        super(name);
+        this.broker = broker;
+        this.history = history;
+        this.interval = interval;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void startEntity() {
+        schedule(getId(), interval, SAMPLE);
+    }
+
+    @Override
+    public void processEvent(SimEvent ev) {
+        if (ev.getTag() != SAMPLE) {
+            return;
+        }
+        sample();
+        if (!broker.isTerminated()) {
+            schedule(getId(), interval, SAMPLE);
+        }
+    }
+
+    @Override
+    public void shutdownEntity() {
+        Log.printLine(getName() + ": " + samples + " samples, " + moves + " cloudlets moved");
+    }
+
+    public long getMoveCount() {
+        return moves;
+    }
+
+    private void sample() {
+        double now = CloudSim.clock();
+        EventRecorder recorder = broker.getEventRecorder();
+        List<Vm> hot = new ArrayList<>();
+        Map<Integer, ArrayDeque<Vm>> coldByDatacenter = new HashMap<>();
+        for (Vm vm : broker.getVmsCreatedList()) {
+            List<ResCloudlet> running = vm.getCloudletScheduler().getCloudletExecList();
+            List<ResCloudlet> waiting = vm.getCloudletScheduler().getCloudletWaitingList();
+            int demandedPes = 0;
+            for (ResCloudlet rcl : running) {
+                demandedPes += rcl.getNumberOfPes();
+            }
+            for (ResCloudlet rcl : waiting) {
+                demandedPes += rcl.getNumberOfPes();
+            }
+            double utilization = Math.min(1.0, demandedPes / (double) vm.getNumberOfPes());
+            history.add(vm.getId(), utilization);
+            samples++;
+            if (recorder != null) {
+                recorder.record(EventRecorder.SAMPLE, now, -1, vm.getId(),
+                        vm.getHost() != null ? vm.getHost().getDatacenter().getId() : -1, utilization);
+            }
+            double mean = history.mean(vm.getId());
+            if (mean > threshold && demandedPes > vm.getNumberOfPes()) {
+                hot.add(vm);
+            } else if (mean < threshold && demandedPes < vm.getNumberOfPes() && vm.getHost() != null) {
+                coldByDatacenter.computeIfAbsent(vm.getHost().getDatacenter().getId(), id -> new ArrayDeque<>()).add(vm);
+            }
+        }
+        for (Vm vm : hot) {
+            if (vm.getHost() == null) {
+                continue;
+            }
+            int datacenterId = vm.getHost().getDatacenter().getId();
+            ArrayDeque<Vm> cold = coldByDatacenter.get(datacenterId);
+            if (cold == null || cold.isEmpty()) {
+                continue;
+            }
+            ResCloudlet largest = null;
+            List<ResCloudlet> running = vm.getCloudletScheduler().getCloudletExecList();
+            List<ResCloudlet> waiting = vm.getCloudletScheduler().getCloudletWaitingList();
+            for (List<ResCloudlet> resident : Arrays.asList(running, waiting)) {
+                for (ResCloudlet rcl : resident) {
+                    if (largest == null || rcl.getRemainingCloudletLength() > largest.getRemainingCloudletLength()) {
+                        largest = rcl;
+                    }
+                }
+            }
+            if (largest == null) {
+                continue;
+            }
+            Vm target = cold.poll();
+            Log.printLine(now + ": " + getName() + ": VM #" + vm.getId() + " above " + threshold
+                    + ", moving cloudlet #" + largest.getCloudletId() + " to VM #" + target.getId());
+            broker.moveCloudlet(largest.getCloudletId(), largest.getRemainingCloudletLength(), vm.getId(),
+                    target.getId(), datacenterId);
+            moves++;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Datacenter;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Vm;
+
+import java.util.*;
+
+/*
+ * Spreads VMs over datacenters in proportion to their capacity before the
+ * simulation starts. Each VM goes to the datacenter with the most free MIPS
+ * that still has a host with room for it (MIPS, RAM, bandwidth and storage),
+ * first fit within that datacenter. VMs that fit nowhere are left unplanned
+ * and the broker falls back to its usual datacenter-by-datacenter creation.
+ */
+public class VmPlacementPlanner {
+    private final List<Datacenter> datacenters;
+    private final double[] freeMips;
+    // Per datacenter, per host: free MIPS, RAM, bandwidth and storage
+    private final double[][][] hostFree;
+    private final Map<Integer, Integer> placement = new HashMap<>();
+    private final Map<Integer, List<Vm>> vmsByDatacenter = new LinkedHashMap<>();
+
+    public VmPlacementPlanner(List<Datacenter> datacenters) {
+        this.datacenters = datacenters;
+        this.freeMips = new double[datacenters.size()];
+        this.hostFree = new double[datacenters.size()][][];
+        for (int d = 0; d < datacenters.size(); d++) {
+            Datacenter datacenter = datacenters.get(d);
+            List<Host> hosts = datacenter.getHostList();
+            hostFree[d] = new double[hosts.size()][];
+            for (int h = 0; h < hosts.size(); h++) {
+                Host host = hosts.get(h);
+                hostFree[d][h] = new double[] {host.getTotalMips(), host.getRam(), host.getBw(), host.getStorage()};
+                freeMips[d] += host.getTotalMips();
+            }
+            vmsByDatacenter.put(datacenter.getId(), new ArrayList<>());
+        }
+    }
+
+    // Plans every VM and returns the VMs planned per datacenter id
+    public Map<Integer, List<Vm>> place(List<? extends Vm> vmList) {
+        for (Vm vm : vmList) {
+            place(vm);
+        }
+        return vmsByDatacenter;
+    }
+
+    // Datacenter id the VM was planned for, or -1
+    public int place(Vm vm) {
+        double[] demand = {vm.getMips() * vm.getNumberOfPes(), vm.getRam(), vm.getBw(), vm.getSize()};
+        int bestDc = -1;
+        int bestHost = -1;
+        for (int d = 0; d < datacenters.size(); d++) {
+            if (bestDc >= 0 && freeMips[d] <= freeMips[bestDc]) {
+                continue;
+            }
+            int host = firstFit(d, demand);
+            if (host >= 0) {
+                bestDc = d;
+                bestHost = host;
+            }
+        }
+        if (bestDc < 0) {
+            return -1;
+        }
+        double[] free = hostFree[bestDc][bestHost];
+        for (int r = 0; r < free.length; r++) {
+            free[r] -= demand[r];
+        }
+        freeMips[bestDc] -= demand[0];
+        int datacenterId = datacenters.get(bestDc).getId();
+        placement.put(vm.getId(), datacenterId);
+        vmsByDatacenter.get(datacenterId).add(vm);
+        return datacenterId;
+    }
+
+    // VM id to datacenter id
+    public Map<Integer, Integer> getPlacement() {
+        return placement;
+    }
+
+    public Map<Integer, List<Vm>> getVmsByDatacenter() {
+        return vmsByDatacenter;
+    }
+
+    private int firstFit(int d, double[] demand) {
+        for (int h = 0; h < hostFree[d].length; h++) {
+            double[] free = hostFree[d][h];
+            if (free[0] >= demand[0] && free[1] >= demand[1] && free[2] >= demand[2] && free[3] >= demand[3]) {
+                return h;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,227 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Vm;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/*
+ * Holds cloudlets back in the broker so that they can still be moved between
+ * VMs. At most maxInFlight cloudlets per VM are sent to the datacenter; the
+ * rest wait in a per-VM queue and have not started. A cloudlet that would
+ * queue goes to an idle VM instead, one with nothing in flight, if there is
+ * one. When a cloudlet returns, its VM takes the next one from its own queue,
+ * or, if that is empty, steals the newest cloudlet from the longest of
+ * `victims` randomly sampled non-empty queues. A StealListener is told of
+ * every cloudlet that changes VM either way, so bookkeeping charged to the
+ * victim can follow it.
+ *
+ * VMs with queued work and idle VMs are each kept in an array with a position
+ * index, so adding, removing and sampling one are all O(1).
+ */
+public class WorkStealingDispatcher {
+    public interface StealListener {
+        void stolen(Cloudlet cloudlet, int fromVmId, int toVmId);
+    }
+
+    private final int maxInFlight;
+    private final int victims;
+    private final Random random;
+    private int[] inFlight = new int[16];
+    private ArrayDeque<Cloudlet>[] queues = newQueues(16);
+    private final VmSet loaded = new VmSet();
+    private final VmSet idle = new VmSet();
+    private long queued;
+    private long stolen;
+    private StealListener stealListener;
+
+    // VM ids in an array plus each id's position in it, -1 when absent
+    private static final class VmSet {
+        int[] pos = filled(16);
+        int[] ids = new int[16];
+        int count;
+
+        boolean contains(int vmId) {
+            return vmId < pos.length && pos[vmId] >= 0;
+        }
+
+        void add(int vmId) {
+            pos[vmId] = count;
+            ids[count++] = vmId;
+        }
+
+        void remove(int vmId) {
+            int at = pos[vmId];
+            int last = ids[--count];
+            ids[at] = last;
+            pos[last] = at;
+            pos[vmId] = -1;
+        }
+
+        int sample(Random random) {
+            return ids[random.nextInt(count)];
+        }
+
+        void ensure(int size) {
+            if (size > pos.length) {
+                int old = pos.length;
+                pos = Arrays.copyOf(pos, size);
+                Arrays.fill(pos, old, size, -1);
+                ids = Arrays.copyOf(ids, size);
+            }
+        }
+    }
+
+    public WorkStealingDispatcher(int maxInFlight, int victims, long seed) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.victims = Math.max(1, victims);
+        this.random = new Random(seed);
+    }
+
+    // -Dsteal=<n> caps each VM at n dispatched cloudlets; null when the property is not set
+    public static WorkStealingDispatcher fromSystemProperty() {
+        String value = System.getProperty("steal");
+        return value != null ? new WorkStealingDispatcher(Integer.parseInt(value), 2, 1) : null;
+    }
+
+    public void setStealListener(StealListener stealListener) {
+        this.stealListener = stealListener;
+    }
+
+    // Called once the VMs are created, so VMs that have not received any work yet count as idle
+    public void setVms(List<? extends Vm> vms) {
+        for (Vm vm : vms) {
+            ensureVm(vm.getId());
+            if (inFlight[vm.getId()] == 0 && !idle.contains(vm.getId())) {
+                idle.add(vm.getId());
+            }
+        }
+    }
+
+    // True if the cloudlet may go to its VM now, possibly another idle one, false if it was queued
+    public boolean admit(Cloudlet cloudlet) {
+        int vmId = cloudlet.getVmId();
+        ensureVm(vmId);
+        if (inFlight[vmId] < maxInFlight) {
+            start(vmId);
+            return true;
+        }
+        if (idle.count > 0) {
+            int thief = idle.sample(random);
+            steal(cloudlet, vmId, thief);
+            start(thief);
+            return true;
+        }
+        if (queues[vmId] == null) {
+            queues[vmId] = new ArrayDeque<>();
+        }
+        queues[vmId].addLast(cloudlet);
+        queued++;
+        if (!loaded.contains(vmId)) {
+            loaded.add(vmId);
+        }
+        return false;
+    }
+
+    // Called when a cloudlet of the VM returns; the next cloudlet to send to that VM, or null
+    public Cloudlet next(int vmId) {
+        ensureVm(vmId);
+        finish(vmId);
+        Cloudlet cloudlet = null;
+        if (queues[vmId] != null && !queues[vmId].isEmpty()) {
+            cloudlet = take(vmId, false);
+        } else if (loaded.count > 0) {
+            int victim = -1;
+            for (int k = 0; k < victims; k++) {
+                int candidate = loaded.sample(random);
+                if (victim < 0 || queues[candidate].size() > queues[victim].size()) {
+                    victim = candidate;
+                }
+            }
+            cloudlet = take(victim, true);
+            steal(cloudlet, victim, vmId);
+        }
+        if (cloudlet != null) {
+            start(vmId);
+        }
+        return cloudlet;
+    }
+
+    // A cloudlet sent to one VM was moved to another inside the datacenter, so its slot goes with it
+    public void moved(int fromVmId, int toVmId) {
+        ensureVm(Math.max(fromVmId, toVmId));
+        finish(fromVmId);
+        start(toVmId);
+    }
+
+    public void forEachQueued(Consumer<Cloudlet> action) {
+        for (int i = 0; i < loaded.count; i++) {
+            queues[loaded.ids[i]].forEach(action);
+        }
+    }
+
+    public long getQueuedCount() {
+        return queued;
+    }
+
+    public long getStolenCount() {
+        return stolen;
+    }
+
+    // Owners take the oldest cloudlet, thieves the newest
+    private Cloudlet take(int vmId, boolean newest) {
+        ArrayDeque<Cloudlet> queue = queues[vmId];
+        Cloudlet cloudlet = newest ? queue.pollLast() : queue.pollFirst();
+        queued--;
+        if (queue.isEmpty()) {
+            loaded.remove(vmId);
+        }
+        return cloudlet;
+    }
+
+    private void steal(Cloudlet cloudlet, int fromVmId, int toVmId) {
+        cloudlet.setVmId(toVmId);
+        stolen++;
+        if (stealListener != null) {
+            stealListener.stolen(cloudlet, fromVmId, toVmId);
+        }
+    }
+
+    private void start(int vmId) {
+        if (inFlight[vmId]++ == 0 && idle.contains(vmId)) {
+            idle.remove(vmId);
+        }
+    }
+
+    private void finish(int vmId) {
+        inFlight[vmId] = Math.max(0, inFlight[vmId] - 1);
+        if (inFlight[vmId] == 0 && !idle.contains(vmId)) {
+            idle.add(vmId);
+        }
+    }
+
+    private void ensureVm(int vmId) {
+        if (vmId >= inFlight.length) {
+            int size = Math.max(vmId + 1, inFlight.length * 2);
+            inFlight = Arrays.copyOf(inFlight, size);
+            queues = Arrays.copyOf(queues, size);
+            loaded.ensure(size);
+            idle.ensure(size);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ArrayDeque<Cloudlet>[] newQueues(int size) {
+        return (ArrayDeque<Cloudlet>[]) new ArrayDeque[size];
+    }
+
+    private static int[] filled(int size) {
+        int[] array = new int[size];
+        Arrays.fill(array, -1);
+        return array;
+    }
+}
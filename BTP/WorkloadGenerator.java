@@ -0,0 +1,286 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.UtilizationModel;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+
+import java.io.Closeable;
+import java.util.*;
+import java.util.concurrent.*;
+
+/*
+ * Seeded synthetic workload, produced lazily in arrival order like a TraceReader.
+ *
+ * Configured from a compact spec, e.g.
+ *   count=1000000,seed=7,arrival=bursty,rate=50,burst=8,diurnal=0.6,length=pareto,alpha=1.5,min=1000
+ *
+ *   count       number of cloudlets (10000)
+ *   seed        root seed (42)
+ *   arrival     poisson | bursty; bursty is a Poisson stream of batches whose
+ *               size is geometric with mean `burst` (poisson)
+ *   rate        mean cloudlets per second (10)
+ *   burst       mean batch size for bursty arrivals (10)
+ *   diurnal     amplitude 0..1 of a sinusoidal daily rate pattern (0)
+ *   period      length of the pattern in seconds (86400)
+ *   length      pareto (min, alpha) | lognormal (median, sigma) | uniform (min, max) (pareto)
+ *   min, max    length bounds in MI; max caps the heavy tails too (1000, 1000000)
+ *   alpha       Pareto shape (1.5)
+ *   median      lognormal median in MI (5000)
+ *   sigma       lognormal shape (1.0)
+ *   data        file and output sizes are uniform in [0, data) (600)
+ *   pes         PEs per cloudlet (1)
+ *   parallelism chunks generated ahead on worker threads (1, i.e. inline)
+ *
+ * Time is cut into chunks that each hold about CHUNK_CLOUDLETS expected
+ * arrivals. The arrival process restricted to one chunk does not depend on the
+ * others, so each chunk draws from its own SplittableRandom stream, split off
+ * the root in chunk order, and chunks can be generated in parallel. Cloudlet
+ * ids are given out in order as cloudlets are consumed. The output is
+ * therefore the same for a given spec whatever the parallelism. Chunks are
+ * primitive arrays; a cloudlet object only exists once it is handed out.
+ */
+public class WorkloadGenerator implements Iterator<TraceCloudlet>, Closeable {
+    private static final int CHUNK_CLOUDLETS = 4096;
+    // Stateless, so one instance is shared by every generated cloudlet
+    private static final UtilizationModel UTILIZATION_MODEL = new UtilizationModelFull();
+
+    private final long count;
+    private final boolean bursty;
+    private final double rate;
+    private final double burst;
+    private final double diurnal;
+    private final double period;
+    private final String lengthModel;
+    private final double minLength;
+    private final double maxLength;
+    private final double alpha;
+    private final double median;
+    private final double sigma;
+    private final long data;
+    private final int pes;
+    private final double chunkWidth;
+    private final SplittableRandom root;
+    private final ExecutorService executor;
+    private final ArrayDeque<Future<Chunk>> ahead = new ArrayDeque<>();
+    private final int parallelism;
+    private long nextChunk;
+    private Chunk current;
+    private int position;
+    private long produced;
+    private double timeShift;
+
+    public WorkloadGenerator(Map<String, String> spec) {
+        Map<String, String> options = new HashMap<>(spec);
+        this.count = (long) number(options, "count", 10000);
+        long seed = (long) number(options, "seed", 42);
+        String arrival = text(options, "arrival", "poisson");
+        if (!arrival.equals("poisson") && !arrival.equals("bursty")) {
+            throw new IllegalArgumentException("arrival must be poisson or bursty, got " + arrival);
+        }
+        this.bursty = arrival.equals("bursty");
+        this.rate = number(options, "rate", 10);
+        this.burst = bursty ? Math.max(1, number(options, "burst", 10)) : 1;
+        this.diurnal = number(options, "diurnal", 0);
+        this.period = number(options, "period", 86400);
+        this.lengthModel = text(options, "length", "pareto");
+        if (!lengthModel.equals("pareto") && !lengthModel.equals("lognormal") && !lengthModel.equals("uniform")) {
+            throw new IllegalArgumentException("length must be pareto, lognormal or uniform, got " + lengthModel);
+        }
+        this.minLength = number(options, "min", 1000);
+        this.maxLength = number(options, "max", 1000000);
+        this.alpha = number(options, "alpha", 1.5);
+        this.median = number(options, "median", 5000);
+        this.sigma = number(options, "sigma", 1.0);
+        this.data = (long) number(options, "data", 600);
+        this.pes = (int) number(options, "pes", 1);
+        this.parallelism = Math.max(1, (int) number(options, "parallelism", 1));
+        if (!options.isEmpty()) {
+            throw new IllegalArgumentException("unknown workload keys " + options.keySet());
+        }
+        if (rate <= 0 || diurnal < 0 || diurnal > 1 || minLength < 1 || maxLength < minLength || alpha <= 0) {
+            throw new IllegalArgumentException("workload needs rate > 0, 0 <= diurnal <= 1, 1 <= min <= max and alpha > 0");
+        }
+        this.chunkWidth = CHUNK_CLOUDLETS / rate;
+        this.root = new SplittableRandom(seed);
+        this.executor = parallelism > 1 ? Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "workload-generator");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    // Spec of comma separated key=value pairs, see the class comment
+    public static WorkloadGenerator parse(String spec) {
+        Map<String, String> options = new HashMap<>();
+        for (String pair : spec.split(",")) {
+            pair = pair.trim();
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("expected key=value in workload spec, got '" + pair + "'");
+            }
+            options.put(pair.substring(0, eq).trim().toLowerCase(), pair.substring(eq + 1).trim());
+        }
+        return new WorkloadGenerator(options);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (produced >= count) {
+            return false;
+        }
+        while (current == null || position == current.size) {
+            current = nextChunk();
+            position = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public TraceCloudlet next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int i = position++;
+        return new TraceCloudlet((int) produced++, current.arrival[i] - timeShift, current.length[i], pes,
+                current.fileSize[i], current.outputSize[i], UTILIZATION_MODEL);
+    }
+
+    // Drops the next n cloudlets without creating them, to continue a checkpointed run
+    public void skip(long n) {
+        long target = Math.min(count, produced + n);
+        while (produced < target && hasNext()) {
+            int step = (int) Math.min(target - produced, current.size - position);
+            position += step;
+            produced += step;
+        }
+    }
+
+    // Subtracted from every arrival time, so a resumed run starts at clock zero
+    public void setTimeShift(double timeShift) {
+        this.timeShift = timeShift;
+    }
+
+    public long getProducedCount() {
+        return produced;
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    // Keeps `parallelism` chunks in the works; splitting happens here so streams follow chunk order
+    private Chunk nextChunk() {
+        if (executor == null) {
+            return generate(nextChunk++, root.split());
+        }
+        while (ahead.size() < parallelism) {
+            long index = nextChunk++;
+            SplittableRandom random = root.split();
+            ahead.add(executor.submit(() -> generate(index, random)));
+        }
+        try {
+            return ahead.poll().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating the workload", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to generate the workload", e.getCause());
+        }
+    }
+
+    // Thinning: candidate events at the peak rate, each kept with probability rate(t) / peak
+    private Chunk generate(long index, SplittableRandom random) {
+        double start = index * chunkWidth;
+        double end = start + chunkWidth;
+        double peakEventRate = rate * (1 + diurnal) / burst;
+        Chunk chunk = new Chunk(CHUNK_CLOUDLETS + CHUNK_CLOUDLETS / 4);
+        double t = start;
+        while (true) {
+            t += -Math.log(1 - random.nextDouble()) / peakEventRate;
+            if (t >= end) {
+                return chunk;
+            }
+            if (diurnal > 0 && random.nextDouble() * (1 + diurnal) > 1 + diurnal * Math.sin(2 * Math.PI * t / period)) {
+                continue;
+            }
+            int batch = bursty ? geometric(random) : 1;
+            for (int b = 0; b < batch; b++) {
+                long file = data > 0 ? random.nextLong(data) : 0;
+                chunk.add(t, length(random), file, data > 0 ? random.nextLong(data) : 0);
+            }
+        }
+    }
+
+    // Batch size >= 1 with mean `burst`
+    private int geometric(SplittableRandom random) {
+        double p = 1 / burst;
+        if (p >= 1) {
+            return 1;
+        }
+        return 1 + (int) Math.floor(Math.log(1 - random.nextDouble()) / Math.log(1 - p));
+    }
+
+    private long length(SplittableRandom random) {
+        double value;
+        if (lengthModel.equals("pareto")) {
+            value = minLength / Math.pow(1 - random.nextDouble(), 1 / alpha);
+        } else if (lengthModel.equals("lognormal")) {
+            value = median * Math.exp(sigma * gaussian(random));
+        } else {
+            value = minLength + random.nextDouble() * (maxLength - minLength);
+        }
+        return (long) Math.max(minLength, Math.min(maxLength, value));
+    }
+
+    // Box-Muller, SplittableRandom has no nextGaussian
+    private static double gaussian(SplittableRandom random) {
+        double u = 1 - random.nextDouble();
+        double v = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+    }
+
+    private static double number(Map<String, String> options, String key, double fallback) {
+        String value = options.remove(key);
+        return value != null ? Double.parseDouble(value) : fallback;
+    }
+
+    private static String text(Map<String, String> options, String key, String fallback) {
+        String value = options.remove(key);
+        return value != null ? value.toLowerCase() : fallback;
+    }
+
+    private static class Chunk {
+        double[] arrival;
+        long[] length;
+        long[] fileSize;
+        long[] outputSize;
+        int size;
+
+        Chunk(int capacity) {
+            arrival = new double[capacity];
+            length = new long[capacity];
+            fileSize = new long[capacity];
+            outputSize = new long[capacity];
+        }
+
+        void add(double time, long cloudletLength, long file, long output) {
+            if (size == arrival.length) {
+                int capacity = size * 2;
+                arrival = Arrays.copyOf(arrival, capacity);
+                length = Arrays.copyOf(length, capacity);
+                fileSize = Arrays.copyOf(fileSize, capacity);
+                outputSize = Arrays.copyOf(outputSize, capacity);
+            }
+            arrival[size] = time;
+            length[size] = cloudletLength;
+            fileSize[size] = file;
+            outputSize[size] = output;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Vm;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * One batch bind per operation, for every registered policy across VM and
+ * cloudlet scales. Each invocation binds a fresh copy of the cloudlet list,
+ * unbound and in creation order, with a fresh policy and history, since SJF
+ * sorts the list it is given and the policies keep backlogs between calls.
+ * The genetic binder runs with a fixed 50 ms budget per batch.
+ *
+ * Large repeats the measurement at 10^6 cloudlets for the policies whose
+ * decisions cost O(1) or O(log n), so the genetic binder's fixed budget does
+ * not dominate the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dga.budget=" + SchedulingBenchmark.GA_BUDGET_MILLIS)
+public class BindingBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int vms;
+
+    @Param({"1000", "10000", "100000"})
+    public int cloudlets;
+
+    @Param({"throttled", "sjf", "dynamicrr", "bwrr", "p2c", "cost", "ga"})
+    public String policy;
+
+    private List<Vm> vmList;
+    private List<Cloudlet> cloudletList;
+    private List<Cloudlet> batch;
+    private CloudletBindingPolicy binder;
+
+    @Setup(Level.Trial)
+    public void createLists() {
+        Log.disable();
+        vmList = SchedulingBenchmark.createVms(vms);
+        cloudletList = SchedulingBenchmark.createCloudlets(cloudlets);
+    }
+
+    @Setup(Level.Invocation)
+    public void copyList() {
+        batch = SchedulingBenchmark.unbound(cloudletList);
+        binder = BindingPolicyRegistry.create(policy);
+    }
+
+    @Benchmark
+    public List<Cloudlet> bind() {
+        binder.bind(vmList, batch, new UtilizationHistory(SchedulingBenchmark.HISTORY_WINDOW));
+        return batch;
+    }
+
+    // Nested classes do not inherit the outer class's JMH settings
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    @Fork(1)
+    public static class Large {
+        @Param({"1000", "10000"})
+        public int vms;
+
+        @Param({"1000000"})
+        public int cloudlets;
+
+        @Param({"throttled", "sjf", "dynamicrr", "bwrr", "p2c", "cost"})
+        public String policy;
+
+        private List<Vm> vmList;
+        private List<Cloudlet> cloudletList;
+        private List<Cloudlet> batch;
+        private CloudletBindingPolicy binder;
+
+        @Setup(Level.Trial)
+        public void createLists() {
+            Log.disable();
+            vmList = SchedulingBenchmark.createVms(vms);
+            cloudletList = SchedulingBenchmark.createCloudlets(cloudlets);
+        }
+
+        @Setup(Level.Invocation)
+        public void copyList() {
+            batch = SchedulingBenchmark.unbound(cloudletList);
+            binder = BindingPolicyRegistry.create(policy);
+        }
+
+        @Benchmark
+        public List<Cloudlet> bind() {
+            binder.bind(vmList, batch, new UtilizationHistory(SchedulingBenchmark.HISTORY_WINDOW));
+            return batch;
+        }
+    }
+}
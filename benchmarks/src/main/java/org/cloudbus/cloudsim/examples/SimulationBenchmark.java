@@ -0,0 +1,81 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.cloudbus.cloudsim.Log;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Whole simulations through SweepWorker.run, so the same wiring as the
+ * drivers, per policy and cloudlet scheduler. Each fork runs one parameter
+ * combination, so the scheduler can go through its system property as it
+ * does for a forked sweep worker.
+ *
+ * Large runs 10^4 VMs with up to 10^6 cloudlets, without the genetic binder,
+ * whose fixed search budget per batch would dominate the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dga.budget=" + SchedulingBenchmark.GA_BUDGET_MILLIS)
+public class SimulationBenchmark {
+    private static final int DATACENTERS = 4;
+
+    @Param({"100", "1000"})
+    public int vms;
+
+    @Param({"1000", "10000"})
+    public int cloudlets;
+
+    @Param({"throttled", "sjf", "dynamicrr", "bwrr", "p2c", "cost", "ga"})
+    public String policy;
+
+    @Param({"timeshared", "batched"})
+    public String scheduler;
+
+    @Setup(Level.Trial)
+    public void selectScheduler() {
+        Log.disable();
+        CloudletSchedulerRegistry.get(scheduler);
+        System.setProperty("scheduler", scheduler);
+    }
+
+    @Benchmark
+    public String simulate() throws Exception {
+        return SweepWorker.run(vms, cloudlets, policy, 1, DATACENTERS);
+    }
+
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 5)
+    @Fork(1)
+    public static class Large {
+        @Param({"10000"})
+        public int vms;
+
+        @Param({"100000", "1000000"})
+        public int cloudlets;
+
+        @Param({"throttled", "sjf", "dynamicrr", "bwrr", "p2c", "cost"})
+        public String policy;
+
+        @Param({"timeshared", "batched"})
+        public String scheduler;
+
+        @Setup(Level.Trial)
+        public void selectScheduler() {
+            Log.disable();
+            CloudletSchedulerRegistry.get(scheduler);
+            System.setProperty("scheduler", scheduler);
+        }
+
+        @Benchmark
+        public String simulate() throws Exception {
+            return SweepWorker.run(vms, cloudlets, policy, 1, DATACENTERS);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.cloudbus.cloudsim.examples;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// The window mean the throttled policy reads per VM, over full histories
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UtilizationHistoryBenchmark {
+    @Param({"100", "10000", "1000000"})
+    public int vms;
+
+    private UtilizationHistory history;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void fillHistory() {
+        history = new UtilizationHistory(SchedulingBenchmark.HISTORY_WINDOW);
+        Random rand = new Random(42);
+        for (int vm = 0; vm < vms; vm++) {
+            for (int s = 0; s < SchedulingBenchmark.HISTORY_WINDOW; s++) {
+                history.add(vm, rand.nextDouble() * 0.5);
+            }
+        }
+    }
+
+    @Benchmark
+    public double mean() {
+        int vm = next;
+        next = vm + 1 == vms ? 0 : vm + 1;
+        return history.mean(vm);
+    }
+}